@@ -22,12 +22,13 @@ public class AddCmd extends LibraryCommand{
      * Execute the add command. This will add the data from the
      * input path to library data.
      * @param data book data to be considered for input data.
+     * @param out sink the loading results are written to.
      * @throws NullPointerException if given LibraryData is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, OutputSink out) {
         Objects.requireNonNull(data,"Given data shouldn't be null.");
-        data.loadData(bookDataPath);
+        data.loadData(bookDataPath, out);
     }
 
     /**
@@ -0,0 +1,119 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dictionary of the author names read while loading a book data file.
+ *
+ * Every distinct author name is kept only once and books with the same authors field
+ * share a single author array, so repeated authors don't cost additional memory once
+ * the file is loaded. The dictionary keeps track of an estimate of the heap memory saved
+ * this way. It can be used by several parse threads at once.
+ */
+public class AuthorDictionary {
+
+    /** Estimated size of a String object without its character array. */
+    private static final int STRING_SIZE = 24;
+    /** Estimated size of an array object without its elements. */
+    private static final int ARRAY_HEADER_SIZE = 16;
+    /** Estimated size of an object reference. */
+    private static final int REFERENCE_SIZE = 4;
+    /** Alignment of objects on the heap. */
+    private static final int OBJECT_ALIGNMENT = 8;
+
+    /** Shared author arrays by authors field. */
+    private final Map<String, String[]> authorLists;
+    /** Shared author names. */
+    private final Map<String, String> authorNames;
+    /** Estimated number of bytes saved by sharing names and arrays. */
+    private final LongAdder bytesSaved;
+
+    /** Create a new and empty dictionary. */
+    public AuthorDictionary() {
+        authorLists = new ConcurrentHashMap<>();
+        authorNames = new ConcurrentHashMap<>();
+        bytesSaved = new LongAdder();
+    }
+
+    /**
+     * Get the shared author array for the given authors field.
+     * @param authorsField authors field of a book data row
+     * @return the shared authors or null if the field has not been added yet
+     */
+    public String[] lookup(String authorsField) {
+        String[] authors = authorLists.get(authorsField);
+        if (authors != null) {
+            bytesSaved.add(estimateSize(authors, true));
+        }
+        return authors;
+    }
+
+    /**
+     * Add the authors parsed from an authors field to the dictionary.
+     * Author names known already are replaced by the shared ones.
+     * @param authorsField authors field of a book data row
+     * @param authors authors parsed from the field
+     * @return the shared author array for the field, which might have
+     * been added by another thread in the meantime
+     */
+    public String[] add(String authorsField, String[] authors) {
+        for (int i = 0; i < authors.length; i++) {
+            String known = authorNames.putIfAbsent(authors[i], authors[i]);
+            if (known != null) {
+                bytesSaved.add(estimateSize(authors[i]));
+                authors[i] = known;
+            }
+        }
+        String[] known = authorLists.putIfAbsent(authorsField, authors);
+        if (known != null) {
+            bytesSaved.add(estimateSize(known, false));
+            return known;
+        }
+        return authors;
+    }
+
+    /**
+     * Get the estimated number of heap bytes saved by sharing author names and arrays.
+     * @return estimated bytes saved
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Estimate the heap size of an author array.
+     * @param authors author array
+     * @param withNames whether the size of the names is to be included
+     * @return estimated size in bytes
+     */
+    private static long estimateSize(String[] authors, boolean withNames) {
+        long size = align(ARRAY_HEADER_SIZE + (long) REFERENCE_SIZE * authors.length);
+        if (withNames) {
+            for (String author : authors) {
+                size += estimateSize(author);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Estimate the heap size of a string, which keeps one byte per character
+     * if all characters are Latin-1 and two bytes per character otherwise.
+     * @param value string
+     * @return estimated size in bytes
+     */
+    private static long estimateSize(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING_SIZE + align(ARRAY_HEADER_SIZE + (long) bytesPerChar * value.length());
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+/**
+ * Index from author names to the ids of the book entries written by them.
+ *
+ * Authors are kept in lexicographical order, so all authors can be visited in a
+ * single sorted pass. Ids are expected to be added in ascending order, so the ids
+ * of every author are sorted. Ids of removed entries are not taken out of the
+ * index, they have to be skipped by the caller.
+ */
+public class AuthorIndex {
+
+    /** Ids of the entries per author. */
+    private final TreeMap<String, IntList> postings;
+
+    /** Create a new and empty author index. */
+    public AuthorIndex() {
+        postings = new TreeMap<>();
+    }
+
+    /**
+     * Add the authors of a book entry to the index.
+     * @param id id of the book entry, greater than all ids added before
+     * @param authors authors of the book entry
+     */
+    public void add(int id, String[] authors) {
+        for (String author : authors) {
+            IntList ids = postings.computeIfAbsent(author, key -> new IntList());
+            /* An author listed twice for the same book is only indexed once. */
+            if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                ids.add(id);
+            }
+        }
+    }
+
+    /**
+     * Get the ids of the entries written by the given author.
+     * @param author name of the author
+     * @return sorted ids of the author's entries, empty if the author is unknown.
+     * The returned list must not be modified.
+     */
+    public IntList get(String author) {
+        IntList ids = postings.get(author);
+        return ids == null ? new IntList(0) : ids;
+    }
+
+    /**
+     * Remove the given author from the index.
+     * @param author name of the author
+     * @return sorted ids of the author's entries, empty if the author is unknown
+     */
+    public IntList remove(String author) {
+        IntList ids = postings.remove(author);
+        return ids == null ? new IntList(0) : ids;
+    }
+
+    /**
+     * Get all indexed authors.
+     * @return authors in lexicographical order
+     */
+    public NavigableSet<String> getAuthors() {
+        return postings.navigableKeySet();
+    }
+
+    /** Remove all authors from the index. */
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Write the index to a library snapshot, referring to the authors by dictionary code.
+     * @param out stream to write to
+     * @param authorCodes dictionary codes of all indexed authors
+     * @throws IOException if writing fails
+     */
+    public void writeTo(DataOutputStream out, Map<String, Integer> authorCodes) throws IOException {
+        out.writeInt(postings.size());
+        for (Map.Entry<String, IntList> posting : postings.entrySet()) {
+            out.writeInt(authorCodes.get(posting.getKey()));
+            SnapshotIO.writeIds(out, posting.getValue());
+        }
+    }
+
+    /**
+     * Replace the content of the index with an index read from a library snapshot.
+     * @param in buffer to read from
+     * @param authorNames author names by dictionary code
+     * @throws IOException if the buffer does not contain a complete index
+     */
+    public void readFrom(ByteBuffer in, List<String> authorNames) throws IOException {
+        clear();
+        int authorCount = SnapshotIO.readLength(in);
+        for (int i = 0; i < authorCount; i++) {
+            int code = SnapshotIO.readLength(in);
+            if (code >= authorNames.size()) {
+                throw new IOException("Snapshot contains an unknown author code: " + code);
+            }
+            postings.put(authorNames.get(code), SnapshotIO.readIds(in));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Generator of synthetic book data files in the CSV format read by LibraryFileLoader.
+ *
+ * Titles are built from a small vocabulary, so searches for common words have many
+ * hits, and some titles start with a digit. Authors are drawn from a fixed pool of
+ * names, so every author has many books. Every row has a distinct ISBN, so generated
+ * files contain no duplicate entries. The same seed always gives the same file.
+ */
+public final class BookDataGenerator {
+
+    /** Header line of every book data file. */
+    private static final String HEADER = "title,authors,rating,isbn,pages";
+    /** Words titles are built from. */
+    private static final String[] TITLE_WORDS = {
+        "the", "of", "and", "night", "love", "war", "river", "moon", "house", "garden",
+        "silent", "last", "city", "winter", "summer", "shadow", "light", "stone", "king",
+        "queen", "secret", "lost", "road", "sea", "fire", "glass", "iron", "song", "dream",
+        "empire", "island", "letters", "journey", "storm", "forest", "winds", "heart", "time",
+    };
+    /** First names authors are built from. */
+    private static final String[] FIRST_NAMES = {
+        "Ada", "Bram", "Clara", "Dmitri", "Elena", "Franz", "Grace", "Haruki", "Ines", "Jules",
+        "Kazuo", "Leo", "Mary", "Nadia", "Oscar", "Pearl", "Quentin", "Rosa", "Sami", "Toni",
+    };
+    /** Last names authors are built from. */
+    private static final String[] LAST_NAMES = {
+        "Achebe", "Bronte", "Calvino", "Dickens", "Eliot", "Faulkner", "Gogol", "Hesse",
+        "Ishiguro", "Joyce", "Kafka", "Lessing", "Mann", "Nabokov", "Orwell", "Proust",
+        "Rilke", "Shelley", "Tolstoy", "Woolf", "Yeats", "Zola", "Murakami", "Morrison",
+    };
+    /** Most authors a generated book can have. */
+    private static final int MAX_AUTHORS = 3;
+
+    /** Not to be used. */
+    private BookDataGenerator() {
+        throw new UnsupportedOperationException("This constructor should never be used.");
+    }
+
+    /**
+     * Write a book data file with the given number of rows.
+     * @param file path of the file to be written, an existing file is replaced
+     * @param rows number of book entries to be generated
+     * @param seed seed of the random choices
+     * @throws IOException if the file can't be written
+     * @throws NullPointerException if the given path is null
+     * @throws IllegalArgumentException if the given number of rows is negative
+     */
+    public static void generate(Path file, long rows, long seed) throws IOException {
+        Objects.requireNonNull(file, "Given file must not be null.");
+        if (rows < 0) {
+            throw new IllegalArgumentException("Given number of rows must not be negative: " + rows);
+        }
+        Random random = new Random(seed);
+        StringBuilder row = new StringBuilder();
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            for (long i = 0; i < rows; i++) {
+                row.setLength(0);
+                appendTitle(row, random, i);
+                row.append(',');
+                int authors = 1 + random.nextInt(MAX_AUTHORS);
+                for (int j = 0; j < authors; j++) {
+                    if (j > 0) {
+                        row.append('-');
+                    }
+                    row.append(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]).append(' ')
+                            .append(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                }
+                row.append(',').append(String.format(Locale.ROOT, "%.2f", 1 + 4 * random.nextFloat()));
+                row.append(',').append(100_000_000L + i);
+                row.append(',').append(20 + random.nextInt(1200));
+                out.write(row.toString());
+                out.newLine();
+            }
+        }
+    }
+
+    private static void appendTitle(StringBuilder row, Random random, long rowNumber) {
+        if (random.nextInt(20) == 0) {
+            row.append(1000 + random.nextInt(1000)).append(' ');
+        }
+        String firstWord = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)];
+        row.append(Character.toUpperCase(firstWord.charAt(0))).append(firstWord, 1, firstWord.length());
+        int words = random.nextInt(4);
+        for (int i = 0; i < words; i++) {
+            row.append(' ').append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        row.append(' ').append(rowNumber % 1000);
+    }
+
+    /**
+     * Parse a number of rows, optionally with the suffix k for thousands or M for millions.
+     * @param value number of rows such as 10k, 1M or 250000
+     * @return the number of rows
+     * @throws NumberFormatException if the value is not a valid number of rows
+     */
+    public static long parseRows(String value) {
+        Objects.requireNonNull(value, "Given value must not be null.");
+        long factor = 1;
+        String digits = value;
+        if (value.endsWith("k") || value.endsWith("K")) {
+            factor = 1_000;
+            digits = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("m") || value.endsWith("M")) {
+            factor = 1_000_000;
+            digits = value.substring(0, value.length() - 1);
+        }
+        long rows = Long.parseLong(digits) * factor;
+        if (rows < 0) {
+            throw new NumberFormatException("Number of rows must not be negative: " + value);
+        }
+        return rows;
+    }
+
+    /**
+     * Generate a book data file.
+     * @param args number of rows (such as 10k, 1M or 10M), path of the file to be
+     *             written and optionally the seed of the random choices
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("ERROR: Expected arguments: rows file [seed]");
+            return;
+        }
+        try {
+            long rows = parseRows(args[0]);
+            long seed = args.length == 3 ? Long.parseLong(args[2]) : 0;
+            generate(Paths.get(args[1]), rows, seed);
+            System.out.println(rows + " book entries written to " + args[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("ERROR: Invalid number: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("ERROR: Writing book data failed: " + e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * Query selecting book entries of a library, created by QueryParser.
+ *
+ * Queries are evaluated on sets of entry ids looked up in the indexes of the library
+ * data and combined with set operations, so they never test entries one by one.
+ * Queries are immutable and can be evaluated any number of times.
+ */
+@FunctionalInterface
+public interface BookQuery {
+
+    /**
+     * Get the ids of the entries matching this query. Called by LibraryData.query while
+     * holding the read lock of the data. The result may include ids of removed entries.
+     * @param data library data to be queried
+     * @return ids of the matching entries
+     */
+    IdBitmap evaluate(LibraryData data);
+}
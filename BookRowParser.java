@@ -0,0 +1,337 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single pass parser for rows of the book data csv file.
+ *
+ * A row consists of the fields title, authors, rating, ISBN and pages separated by commas,
+ * where multiple authors are separated by dashes. The fields are located by scanning the row
+ * once, so apart from the strings and the author array of the resulting book entry no
+ * intermediate arrays or substrings are created. Rating and pages are parsed directly from
+ * the characters of the row.
+ *
+ * The result is the same as splitting the row with String.split and parsing the numbers with
+ * Float.parseFloat and Integer.parseInt. Rows can either be given as string or as UTF-8 encoded
+ * bytes, in which case only the resulting strings are decoded. If an author dictionary is given,
+ * the authors of a row are only split if the same authors field has not been seen before.
+ */
+public final class BookRowParser {
+
+    /** Delimiter between the fields of a row. */
+    private static final char FIELD_DELIMITER = ',';
+    /** Delimiter between the authors of a book. */
+    private static final char AUTHOR_DELIMITER = '-';
+    /** Maximum number of digits of a rating parsed without falling back to Float.parseFloat. */
+    private static final int MAX_FAST_RATING_DIGITS = 7;
+    /** Maximum number of fraction digits of a rating parsed without falling back to Float.parseFloat. */
+    private static final int MAX_FAST_FRACTION_DIGITS = 10;
+    /** Maximum number of digits of the pages parsed without falling back to Integer.parseInt. */
+    private static final int MAX_FAST_PAGES_DIGITS = 9;
+    /** Powers of ten which are exactly representable as float. */
+    private static final float[] POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /** Not to be used. */
+    private BookRowParser() {
+        throw new UnsupportedOperationException("This constructor should never be used.");
+    }
+
+    /**
+     * Parse a single row of book data into a book entry.
+     * @param row a row of book data without line break
+     * @return the book entry described by the given row
+     * @throws NullPointerException if the given row is null
+     * @throws IllegalArgumentException if the row has less than five fields
+     * @throws NumberFormatException if rating or pages are not valid numbers
+     */
+    public static BookEntry parse(String row) {
+        return parse(row, null);
+    }
+
+    /**
+     * Parse a single row of book data into a book entry, sharing the authors
+     * through the given dictionary.
+     * @param row a row of book data without line break
+     * @param dictionary dictionary of the authors read so far, or null to not share authors
+     * @return the book entry described by the given row
+     * @throws NullPointerException if the given row is null
+     * @throws IllegalArgumentException if the row has less than five fields
+     * @throws NumberFormatException if rating or pages are not valid numbers
+     */
+    public static BookEntry parse(String row, AuthorDictionary dictionary) {
+        int titleEnd = nextField(row, 0);
+        int authorsEnd = nextField(row, titleEnd + 1);
+        int ratingEnd = nextField(row, authorsEnd + 1);
+        int isbnEnd = nextField(row, ratingEnd + 1);
+        int pagesEnd = row.indexOf(FIELD_DELIMITER, isbnEnd + 1);
+        if (pagesEnd == -1) {
+            pagesEnd = row.length();
+        }
+
+        String title = row.substring(0, titleEnd);
+        String[] authors = dictionary == null ? parseAuthors(row, titleEnd + 1, authorsEnd)
+                : lookupAuthors(row.substring(titleEnd + 1, authorsEnd), dictionary);
+        float rating = parseRating(row, authorsEnd + 1, ratingEnd);
+        String ISBN = row.substring(ratingEnd + 1, isbnEnd);
+        int pages = parsePages(row, isbnEnd + 1, pagesEnd);
+        return new BookEntry(title, authors, rating, ISBN, pages);
+    }
+
+    /**
+     * Parse a single UTF-8 encoded row of book data into a book entry.
+     * @param row buffer containing the row
+     * @param from index of the first byte of the row
+     * @param to index after the last byte of the row, excluding the line break
+     * @return the book entry described by the given row
+     * @throws NullPointerException if the given row is null
+     * @throws IllegalArgumentException if the row has less than five fields
+     * @throws NumberFormatException if rating or pages are not valid numbers
+     */
+    public static BookEntry parse(byte[] row, int from, int to) {
+        return parse(row, from, to, null);
+    }
+
+    /**
+     * Parse a single UTF-8 encoded row of book data into a book entry, sharing
+     * the authors through the given dictionary.
+     * @param row buffer containing the row
+     * @param from index of the first byte of the row
+     * @param to index after the last byte of the row, excluding the line break
+     * @param dictionary dictionary of the authors read so far, or null to not share authors
+     * @return the book entry described by the given row
+     * @throws NullPointerException if the given row is null
+     * @throws IllegalArgumentException if the row has less than five fields
+     * @throws NumberFormatException if rating or pages are not valid numbers
+     */
+    public static BookEntry parse(byte[] row, int from, int to, AuthorDictionary dictionary) {
+        int titleEnd = nextField(row, from, to);
+        int authorsEnd = nextField(row, titleEnd + 1, to);
+        int ratingEnd = nextField(row, authorsEnd + 1, to);
+        int isbnEnd = nextField(row, ratingEnd + 1, to);
+        int pagesEnd = indexOf(row, FIELD_DELIMITER, isbnEnd + 1, to);
+        if (pagesEnd == -1) {
+            pagesEnd = to;
+        }
+
+        String title = decode(row, from, titleEnd);
+        String[] authors = dictionary == null ? parseAuthors(row, titleEnd + 1, authorsEnd)
+                : lookupAuthors(decode(row, titleEnd + 1, authorsEnd), dictionary);
+        float rating = parseRating(row, authorsEnd + 1, ratingEnd);
+        String ISBN = decode(row, ratingEnd + 1, isbnEnd);
+        int pages = parsePages(row, isbnEnd + 1, pagesEnd);
+        return new BookEntry(title, authors, rating, ISBN, pages);
+    }
+
+    /**
+     * Find the end of the field starting at the given index.
+     * @param row row to be searched
+     * @param from start index of the field
+     * @return index of the delimiter terminating the field
+     * @throws IllegalArgumentException if the field is the last one of the row
+     */
+    private static int nextField(String row, int from) {
+        int end = row.indexOf(FIELD_DELIMITER, from);
+        if (end == -1) {
+            throw new IllegalArgumentException("Book data row has too few fields: " + row);
+        }
+        return end;
+    }
+
+    /**
+     * Get the shared authors for the given authors field from the dictionary,
+     * splitting and adding the field only if it is not known yet.
+     */
+    private static String[] lookupAuthors(String authorsField, AuthorDictionary dictionary) {
+        String[] authors = dictionary.lookup(authorsField);
+        if (authors == null) {
+            authors = dictionary.add(authorsField, parseAuthors(authorsField, 0, authorsField.length()));
+        }
+        return authors;
+    }
+
+    /**
+     * Split the authors field at each dash. Like String.split, trailing empty
+     * authors are discarded and a field without dash results in a single author.
+     */
+    private static String[] parseAuthors(String row, int from, int to) {
+        int count = 1;
+        int lastNonEmptyEnd = -1;
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (row.charAt(i) == AUTHOR_DELIMITER) {
+                if (i > start) {
+                    lastNonEmptyEnd = count;
+                }
+                count++;
+                start = i + 1;
+            }
+        }
+        if (count == 1) {
+            return new String[] { row.substring(from, to) };
+        }
+        if (to > start) {
+            lastNonEmptyEnd = count;
+        }
+
+        int length = Math.max(lastNonEmptyEnd, 0);
+        String[] authors = new String[length];
+        start = from;
+        for (int i = 0; i < length; i++) {
+            int end = row.indexOf(AUTHOR_DELIMITER, start);
+            if (end == -1 || end > to) {
+                end = to;
+            }
+            authors[i] = row.substring(start, end);
+            start = end + 1;
+        }
+        return authors;
+    }
+
+    /**
+     * Parse a rating of the form digits[.digits] directly from the row.
+     * Other notations are handed over to Float.parseFloat.
+     */
+    private static float parseRating(String row, int from, int to) {
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (int i = from; i < to; i++) {
+            char c = row.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return Float.parseFloat(row.substring(from, to));
+            }
+        }
+        if (digits == 0 || digits > MAX_FAST_RATING_DIGITS || fractionDigits > MAX_FAST_FRACTION_DIGITS) {
+            return Float.parseFloat(row.substring(from, to));
+        }
+        /* Mantissa and power of ten are exact floats, so the division is rounded like Float.parseFloat. */
+        return fractionDigits <= 0 ? (float) mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+    }
+
+    /**
+     * Parse a page count consisting of digits only directly from the row.
+     * Other notations are handed over to Integer.parseInt.
+     */
+    private static int parsePages(String row, int from, int to) {
+        if (to == from || to - from > MAX_FAST_PAGES_DIGITS) {
+            return Integer.parseInt(row.substring(from, to));
+        }
+        int pages = 0;
+        for (int i = from; i < to; i++) {
+            char c = row.charAt(i);
+            if (c < '0' || c > '9') {
+                return Integer.parseInt(row.substring(from, to));
+            }
+            pages = pages * 10 + (c - '0');
+        }
+        return pages;
+    }
+
+    /*
+     * Byte based counterparts of the methods above. The delimiters, digits and the decimal
+     * point are ASCII characters, which never occur inside a multi byte UTF-8 sequence, so
+     * the fields can be located on the encoded bytes.
+     */
+
+    private static String decode(byte[] row, int from, int to) {
+        return new String(row, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] row, char delimiter, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (row[i] == delimiter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int nextField(byte[] row, int from, int to) {
+        int end = indexOf(row, FIELD_DELIMITER, from, to);
+        if (end == -1) {
+            throw new IllegalArgumentException("Book data row has too few fields: " + decode(row, from, to));
+        }
+        return end;
+    }
+
+    private static String[] parseAuthors(byte[] row, int from, int to) {
+        int count = 1;
+        int lastNonEmptyEnd = -1;
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (row[i] == AUTHOR_DELIMITER) {
+                if (i > start) {
+                    lastNonEmptyEnd = count;
+                }
+                count++;
+                start = i + 1;
+            }
+        }
+        if (count == 1) {
+            return new String[] { decode(row, from, to) };
+        }
+        if (to > start) {
+            lastNonEmptyEnd = count;
+        }
+
+        int length = Math.max(lastNonEmptyEnd, 0);
+        String[] authors = new String[length];
+        start = from;
+        for (int i = 0; i < length; i++) {
+            int end = indexOf(row, AUTHOR_DELIMITER, start, to);
+            if (end == -1) {
+                end = to;
+            }
+            authors[i] = decode(row, start, end);
+            start = end + 1;
+        }
+        return authors;
+    }
+
+    private static float parseRating(byte[] row, int from, int to) {
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (int i = from; i < to; i++) {
+            byte c = row[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return Float.parseFloat(decode(row, from, to));
+            }
+        }
+        if (digits == 0 || digits > MAX_FAST_RATING_DIGITS || fractionDigits > MAX_FAST_FRACTION_DIGITS) {
+            return Float.parseFloat(decode(row, from, to));
+        }
+        return fractionDigits <= 0 ? (float) mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+    }
+
+    private static int parsePages(byte[] row, int from, int to) {
+        if (to == from || to - from > MAX_FAST_PAGES_DIGITS) {
+            return Integer.parseInt(decode(row, from, to));
+        }
+        int pages = 0;
+        for (int i = from; i < to; i++) {
+            byte c = row[i];
+            if (c < '0' || c > '9') {
+                return Integer.parseInt(decode(row, from, to));
+            }
+            pages = pages * 10 + (c - '0');
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.function.IntFunction;
+
+/**
+ * Storage for the book entries of a library, addressed by entry id.
+ *
+ * Ids are assigned in ascending order starting from 0, so they follow the insertion
+ * order. Stored data is never changed: removing an entry only marks its id as removed,
+ * and the entry can still be read. This allows lists handed out earlier to keep
+ * reading from a store while entries are being removed.
+ *
+ * Stores are not thread-safe, except for the readers they hand out.
+ */
+public interface BookStore {
+
+    /**
+     * Append a book entry to the store.
+     * @param entry book entry to be stored
+     * @return id of the stored entry
+     */
+    int add(BookEntry entry);
+
+    /**
+     * Get the book entry with the given id, whether it has been removed or not.
+     * @param id id of the entry
+     * @return the stored book entry
+     * @throws IndexOutOfBoundsException if no entry with the given id has been added
+     */
+    BookEntry get(int id);
+
+    /**
+     * Get the title of the book entry with the given id.
+     * @param id id of the entry
+     * @return title of the stored book entry
+     * @throws IndexOutOfBoundsException if no entry with the given id has been added
+     */
+    String getTitle(int id);
+
+    /**
+     * Get the rating of the book entry with the given id.
+     * @param id id of the entry
+     * @return rating of the stored book entry
+     * @throws IndexOutOfBoundsException if no entry with the given id has been added
+     */
+    float getRating(int id);
+
+    /**
+     * Get the number of pages of the book entry with the given id.
+     * @param id id of the entry
+     * @return pages of the stored book entry
+     * @throws IndexOutOfBoundsException if no entry with the given id has been added
+     */
+    int getPages(int id);
+
+    /**
+     * Get read access to the entries stored so far, which stays valid while further
+     * entries are added. The returned function may be called from any thread that
+     * has seen this call, even while another thread adds entries to the store.
+     * @return function returning the stored book entry for every id below the current size
+     */
+    IntFunction<BookEntry> reader();
+
+    /**
+     * Mark the entry with the given id as removed.
+     * @param id id of the entry
+     */
+    void remove(int id);
+
+    /**
+     * Check whether the entry with the given id has been removed.
+     * @param id id of the entry
+     * @return true if the entry has been removed
+     */
+    boolean isRemoved(int id);
+
+    /**
+     * Get the number of ids assigned so far, including removed entries.
+     * @return number of stored entries
+     */
+    int size();
+
+    /**
+     * Create a new and empty store of the same kind.
+     * @return an empty store
+     */
+    BookStore createEmpty();
+}
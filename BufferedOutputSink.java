@@ -0,0 +1,91 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+/**
+ * Output sink writing to an output stream through a large buffer.
+ *
+ * Output is only passed on to the stream when the buffer is full or the sink is
+ * flushed, unlike System.out which is flushed for every line. Like a PrintStream,
+ * the sink never throws an IOException, failures are reported by checkError.
+ */
+public class BufferedOutputSink implements OutputSink {
+
+    /** Number of characters buffered before they are written to the stream. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Buffer in front of the output stream. */
+    private final BufferedWriter writer;
+    /** Whether writing to the stream has failed. */
+    private boolean error;
+
+    /**
+     * Create a sink writing to the given stream in the given charset.
+     * @param out stream to be written to
+     * @param charset charset used to encode the output
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public BufferedOutputSink(OutputStream out, Charset charset) {
+        Objects.requireNonNull(out, "Given output stream must not be null.");
+        Objects.requireNonNull(charset, "Given charset must not be null.");
+        writer = new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER_SIZE);
+        error = false;
+    }
+
+    /**
+     * Create a sink writing to the standard output in the platform charset.
+     * @return sink writing to System.out
+     */
+    public static BufferedOutputSink toConsole() {
+        return new BufferedOutputSink(System.out, Charset.defaultCharset());
+    }
+
+    /**
+     * Create a sink writing to the standard error output in the platform charset.
+     * @return sink writing to System.err
+     */
+    public static BufferedOutputSink toErrorConsole() {
+        return new BufferedOutputSink(System.err, Charset.defaultCharset());
+    }
+
+    @Override
+    public void print(String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+
+    @Override
+    public void println(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+
+    /**
+     * Flush the sink and check whether writing to the stream has failed,
+     * for instance because a network client has disconnected.
+     * @return true if any output could not be written
+     */
+    public boolean checkError() {
+        flush();
+        return error;
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Output sink keeping all output in memory, for instance to check the output
+ * of a command or to send it somewhere else at once.
+ */
+public class CollectingOutputSink implements OutputSink {
+
+    /** Completed lines. */
+    private final List<String> lines;
+    /** Text of the current line written so far. */
+    private final StringBuilder currentLine;
+
+    /** Create a new and empty sink. */
+    public CollectingOutputSink() {
+        lines = new ArrayList<>();
+        currentLine = new StringBuilder();
+    }
+
+    @Override
+    public void print(String text) {
+        currentLine.append(text);
+    }
+
+    @Override
+    public void println(String line) {
+        if (currentLine.length() > 0) {
+            lines.add(currentLine.append(line).toString());
+            currentLine.setLength(0);
+        } else {
+            lines.add(line);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // nothing to do
+    }
+
+    /**
+     * Get all completed lines written so far. Text of a line which
+     * has not been completed yet is not included.
+     * @return completed lines in the order they were written, can't be modified
+     */
+    public List<String> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    /** Remove all output written so far. */
+    public void clear() {
+        lines.clear();
+        currentLine.setLength(0);
+    }
+}
@@ -0,0 +1,219 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Book store keeping the fields of all book entries in columns of primitive arrays
+ * instead of one object per entry.
+ *
+ * Ratings and pages are stored in a float and an int array. Titles and ISBNs are
+ * packed as UTF-8 bytes into a single byte array. Every distinct author name is stored
+ * once in a dictionary and the entries refer to their authors by dictionary code.
+ * Book entries are only created when they are requested, and their authors share the
+ * dictionary strings.
+ *
+ * Used elements of the columns are never overwritten, full columns are replaced by
+ * larger copies. Readers therefore only have to keep the columns of the moment they
+ * were created.
+ */
+public class ColumnarBookStore implements BookStore {
+
+    /** Initial number of entries the columns can hold. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Rating per entry. */
+    private float[] ratings;
+    /** Number of pages per entry. */
+    private int[] pages;
+    /**
+     * Offsets into the text bytes. The title of entry i is stored from textOffsets[2i]
+     * to textOffsets[2i + 1], its ISBN from textOffsets[2i + 1] to textOffsets[2i + 2].
+     */
+    private int[] textOffsets;
+    /** UTF-8 encoded titles and ISBNs of all entries. */
+    private byte[] text;
+    /** Number of used text bytes. */
+    private int textSize;
+    /**
+     * Offsets into the author codes. The authors of entry i are stored from
+     * authorOffsets[i] to authorOffsets[i + 1].
+     */
+    private int[] authorOffsets;
+    /** Dictionary codes of the authors of all entries. */
+    private int[] authorCodes;
+    /** Number of used author codes. */
+    private int authorCodeCount;
+    /** Author names by dictionary code. */
+    private String[] authorNames;
+    /** Number of author names in the dictionary. */
+    private int authorNameCount;
+    /** Dictionary codes by author name. */
+    private final Map<String, Integer> authorDictionary;
+    /** Ids of the removed entries. */
+    private final BitSet removed;
+    /** Number of stored entries. */
+    private int size;
+
+    /** Create a new and empty store. */
+    public ColumnarBookStore() {
+        ratings = new float[INITIAL_CAPACITY];
+        pages = new int[INITIAL_CAPACITY];
+        textOffsets = new int[2 * INITIAL_CAPACITY + 1];
+        text = new byte[16 * INITIAL_CAPACITY];
+        textSize = 0;
+        authorOffsets = new int[INITIAL_CAPACITY + 1];
+        authorCodes = new int[INITIAL_CAPACITY];
+        authorCodeCount = 0;
+        authorNames = new String[INITIAL_CAPACITY];
+        authorNameCount = 0;
+        authorDictionary = new HashMap<>();
+        removed = new BitSet();
+        size = 0;
+    }
+
+    /**
+     * Create a read-only store sharing the current columns of the given store.
+     * It only supports reading the entries stored so far.
+     * @param source store whose columns are shared
+     */
+    private ColumnarBookStore(ColumnarBookStore source) {
+        ratings = source.ratings;
+        pages = source.pages;
+        textOffsets = source.textOffsets;
+        text = source.text;
+        textSize = source.textSize;
+        authorOffsets = source.authorOffsets;
+        authorCodes = source.authorCodes;
+        authorCodeCount = source.authorCodeCount;
+        authorNames = source.authorNames;
+        authorNameCount = source.authorNameCount;
+        authorDictionary = null;
+        removed = null;
+        size = source.size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalStateException if the packed titles and ISBNs would exceed 2 GB
+     */
+    @Override
+    public int add(BookEntry entry) {
+        if (size == ratings.length) {
+            int capacity = size + (size >> 1);
+            ratings = Arrays.copyOf(ratings, capacity);
+            pages = Arrays.copyOf(pages, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, 2 * capacity + 1);
+            authorOffsets = Arrays.copyOf(authorOffsets, capacity + 1);
+        }
+        int id = size;
+        ratings[id] = entry.getRating();
+        pages[id] = entry.getPages();
+        appendText(entry.getTitle());
+        textOffsets[2 * id + 1] = textSize;
+        appendText(entry.getISBN());
+        textOffsets[2 * id + 2] = textSize;
+        for (String author : entry.getAuthors()) {
+            appendAuthorCode(authorDictionary.computeIfAbsent(author, this::appendAuthorName));
+        }
+        authorOffsets[id + 1] = authorCodeCount;
+        size++;
+        return id;
+    }
+
+    @Override
+    public BookEntry get(int id) {
+        checkId(id);
+        int authorStart = authorOffsets[id];
+        String[] authors = new String[authorOffsets[id + 1] - authorStart];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = authorNames[authorCodes[authorStart + i]];
+        }
+        return new BookEntry(getTitle(id), authors, ratings[id], decodeText(2 * id + 1), pages[id]);
+    }
+
+    @Override
+    public String getTitle(int id) {
+        checkId(id);
+        return decodeText(2 * id);
+    }
+
+    @Override
+    public float getRating(int id) {
+        checkId(id);
+        return ratings[id];
+    }
+
+    @Override
+    public int getPages(int id) {
+        checkId(id);
+        return pages[id];
+    }
+
+    @Override
+    public IntFunction<BookEntry> reader() {
+        return new ColumnarBookStore(this)::get;
+    }
+
+    @Override
+    public void remove(int id) {
+        checkId(id);
+        removed.set(id);
+    }
+
+    @Override
+    public boolean isRemoved(int id) {
+        return removed.get(id);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public BookStore createEmpty() {
+        return new ColumnarBookStore();
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Index " + id + " out of bounds for size " + size);
+        }
+    }
+
+    private void appendAuthorCode(int code) {
+        if (authorCodeCount == authorCodes.length) {
+            authorCodes = Arrays.copyOf(authorCodes, authorCodeCount + (authorCodeCount >> 1));
+        }
+        authorCodes[authorCodeCount++] = code;
+    }
+
+    private int appendAuthorName(String name) {
+        if (authorNameCount == authorNames.length) {
+            authorNames = Arrays.copyOf(authorNames, authorNameCount + (authorNameCount >> 1));
+        }
+        authorNames[authorNameCount] = name;
+        return authorNameCount++;
+    }
+
+    private void appendText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if ((long) textSize + bytes.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Text of the columnar book store exceeds 2 GB.");
+        }
+        if (textSize + bytes.length > text.length) {
+            long capacity = Math.max((long) text.length + (text.length >> 1), (long) textSize + bytes.length);
+            text = Arrays.copyOf(text, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        System.arraycopy(bytes, 0, text, textSize, bytes.length);
+        textSize += bytes.length;
+    }
+
+    private String decodeText(int offsetIndex) {
+        int start = textOffsets[offsetIndex];
+        return new String(text, start, textOffsets[offsetIndex + 1] - start, StandardCharsets.UTF_8);
+    }
+}
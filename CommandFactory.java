@@ -13,7 +13,8 @@ public final class CommandFactory { // the final keyword prevents subclassing of
     }
 
     /**
-     * Create library command for the given type and argument.
+     * Create library command for the given type and argument, reporting
+     * an illegal argument on the console.
      * 
      * @param cmdType Type of the command to be created
      * @param argumentInput command argument to be used during initialisation of the command
@@ -22,8 +23,27 @@ public final class CommandFactory { // the final keyword prevents subclassing of
      * @throws NullPointerException If one of the given parameters is null.
      */
     public static LibraryCommand createCommand(CommandType cmdType, String argumentInput) {
+        OutputSink errorConsole = BufferedOutputSink.toErrorConsole();
+        LibraryCommand command = createCommand(cmdType, argumentInput, errorConsole);
+        errorConsole.flush();
+        return command;
+    }
+
+    /**
+     * Create library command for the given type and argument, reporting
+     * an illegal argument to the given sink.
+     * 
+     * @param cmdType Type of the command to be created
+     * @param argumentInput command argument to be used during initialisation of the command
+     * @param errorOut sink the reason for a failed command creation is written to
+     * @return Command of the given type initialised for the given argument. If command creation 
+     * failed due to an illegal argument, null will be returned.
+     * @throws NullPointerException If one of the given parameters is null.
+     */
+    public static LibraryCommand createCommand(CommandType cmdType, String argumentInput, OutputSink errorOut) {
         Objects.requireNonNull(cmdType, "Given command type must not be null.");
         Objects.requireNonNull(argumentInput, "Given argument input must not be null.");
+        Objects.requireNonNull(errorOut, "Given error output sink must not be null.");
 
         try {
             switch(cmdType) {
@@ -39,11 +59,18 @@ public final class CommandFactory { // the final keyword prevents subclassing of
                 case SEARCH: return new SearchCmd(argumentInput);
                 case REMOVE: return new RemoveCmd(argumentInput);
                 case GROUP: return new GroupCmd(argumentInput);
+                case STATS: return new StatsCmd(argumentInput);
+                case TOP: return new TopCmd(argumentInput);
+                case RANGE: return new RangeCmd(argumentInput);
+                case SORT: return new SortCmd(argumentInput);
+                case FUZZY: return new FuzzyCmd(argumentInput);
+                case QUERY: return new QueryCmd(argumentInput);
+                case SUGGEST: return new SuggestCmd(argumentInput);
                 default:
                     throw new IllegalArgumentException("Command type not supported: " + cmdType);
             }
         } catch (IllegalArgumentException e) {
-            System.err.println("ERROR: " + e.getMessage());
+            errorOut.println("ERROR: " + e.getMessage());
         }
 
         return null;
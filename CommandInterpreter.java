@@ -1,30 +1,99 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
  * Class responsible for creating library commands
  * from given user input and executing them.
+ *
+ * Since commands are immutable, the most recently used commands are kept by
+ * their input line and handed out again when the same line is parsed, so
+ * repeated queries skip parsing and validation. A command interpreter can be
+ * shared between threads.
  */
 public class CommandInterpreter {
 
     /** Delimiter between command keyword and corresponding argument. */
     private static final String COMMAND_ARGUMENT_DELIMITER = " ";
+    /** Number of parsed commands kept by default. */
+    private static final int DEFAULT_CACHE_SIZE = 256;
 
-    /** Create a CommandInterpreter instance. */
+    /** Metrics parsing and execution are recorded in. */
+    private final CommandMetrics metrics;
+    /** Parsed commands by input line, least recently used first. Guarded by itself. */
+    private final Map<String, LibraryCommand> commandCache;
+
+    /** Create a CommandInterpreter instance recording into the global metrics. */
     public CommandInterpreter() {
-        // nothing to do
+        this(DEFAULT_CACHE_SIZE);
     }
 
     /**
-     * Parse given user input and create a corresponding library command.
+     * Create a CommandInterpreter instance recording into the global metrics
+     * and keeping the given number of parsed commands.
+     * @param cacheSize number of most recently parsed commands kept, 0 to parse every line
+     * @throws IllegalArgumentException if the given cache size is negative
+     */
+    public CommandInterpreter(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Given cache size must not be negative: " + cacheSize);
+        }
+        metrics = CommandMetrics.getGlobal();
+        commandCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LibraryCommand> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Parse given user input and create a corresponding library command,
+     * reporting illegal arguments on the console.
      * 
      * @param inputLine The input is expected to be a single line starting with a command
      * keyword followed by corresponding arguments.
      * @return Command as specified in the given input line. If command creation 
      * failed due to an illegal argument or command keyword, null will be returned.
      * @throws NullPointerException If the given input line is null.
+     * @see #parseCommand(String, OutputSink)
      */
     public LibraryCommand parseCommand(String inputLine) {
+        OutputSink errorConsole = BufferedOutputSink.toErrorConsole();
+        LibraryCommand command = parseCommand(inputLine, errorConsole);
+        errorConsole.flush();
+        return command;
+    }
+
+    /**
+     * Parse given user input and create a corresponding library command.
+     * A command parsed from the same line before may be returned instead
+     * of a new one. Invalid lines are not cached, so their errors are
+     * reported every time.
+     * 
+     * @param inputLine The input is expected to be a single line starting with a command
+     * keyword followed by corresponding arguments.
+     * @param errorOut sink illegal arguments are reported to, such as the sink of the
+     * client which sent the input
+     * @return Command as specified in the given input line. If command creation 
+     * failed due to an illegal argument or command keyword, null will be returned.
+     * @throws NullPointerException If one of the given parameters is null.
+     */
+    public LibraryCommand parseCommand(String inputLine, OutputSink errorOut) {
         Objects.requireNonNull(inputLine, "Given input must not be null.");
+        Objects.requireNonNull(errorOut, "Given error output sink must not be null.");
+        long start = System.nanoTime();
+
+        LibraryCommand cached;
+        synchronized (commandCache) {
+            cached = commandCache.get(inputLine);
+        }
+        if (cached != null) {
+            metrics.recordParse(System.nanoTime() - start, true);
+            return cached;
+        }
 
         // split command keyword from arguments
         int firstSpaceIdx = inputLine.indexOf(COMMAND_ARGUMENT_DELIMITER);
@@ -37,36 +106,171 @@ public class CommandInterpreter {
             argumentInput = inputLine.substring(firstSpaceIdx + 1);
         }
 
-        return setupCommand(commandInput, argumentInput);
+        LibraryCommand command = setupCommand(commandInput, argumentInput, errorOut);
+        if (command != null) {
+            synchronized (commandCache) {
+                commandCache.put(inputLine, command);
+            }
+        }
+        metrics.recordParse(System.nanoTime() - start, command != null);
+        return command;
     }
 
     /**
-     * Execute the given command.
+     * Execute the given command, writing its output to the console.
      * 
      * @param command Command to be executed.
      * @param data book data to be considered for command execution.
      * @throws NullPointerException If one of the given parameters is null.
      */
     public void executeCommand(LibraryCommand command, LibraryData data) {
+        OutputSink console = BufferedOutputSink.toConsole();
+        executeCommand(command, data, console);
+        console.flush();
+    }
+
+    /**
+     * Execute the given command, writing its output to the given sink.
+     * Latency, book entries visited and output lines written are recorded
+     * in the command metrics.
+     * 
+     * The output of queries is kept in the result cache of the book data and
+     * written from there when the same query is executed again before the book
+     * data changes.
+     * 
+     * @param command Command to be executed.
+     * @param data book data to be considered for command execution.
+     * @param out sink the command output is written to.
+     * @throws NullPointerException If one of the given parameters is null.
+     */
+    public void executeCommand(LibraryCommand command, LibraryData data, OutputSink out) {
         Objects.requireNonNull(command, "Given command must not be null.");
         Objects.requireNonNull(data, "Given data must not be null.");
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+
+        CountingOutputSink countingOut = new CountingOutputSink(out);
+        CommandMetrics.takeScannedRows();
+        long start = System.nanoTime();
+        try {
+            if (command.isQuery()) {
+                executeQuery(command, data, countingOut);
+            } else {
+                command.execute(data, countingOut);
+            }
+        } finally {
+            metrics.recordExecution(command.getType(), System.nanoTime() - start,
+                    CommandMetrics.takeScannedRows(), countingOut.lines);
+        }
+    }
+
+    /**
+     * Write the cached output of a query for the current version of the book data,
+     * or execute the query and cache its output.
+     * @param command query to be executed
+     * @param data book data to be considered for command execution
+     * @param out sink the command output is written to
+     */
+    private void executeQuery(LibraryCommand command, LibraryData data, OutputSink out) {
+        ResultCache cache = data.getResultCache();
+        String query = command.getType() + COMMAND_ARGUMENT_DELIMITER + command.getArgumentInput();
+        /* Read the version first, so a change during execution leaves the result unused. */
+        long version = data.getVersion();
+        List<String> cachedLines = cache.get(query, version);
+        if (cachedLines != null) {
+            for (String line : cachedLines) {
+                out.println(line);
+            }
+            return;
+        }
+
+        RecordingOutputSink recordingOut = new RecordingOutputSink(out, cache.getMaxResultSize());
+        command.execute(data, recordingOut);
+        if (recordingOut.lines != null) {
+            cache.put(query, version, recordingOut.lines);
+        }
+    }
+
+    /**
+     * Output sink passing all output on while recording the written lines, as long
+     * as they are complete lines and their size stays within the given limit.
+     */
+    private static class RecordingOutputSink implements OutputSink {
+        private final OutputSink out;
+        private final long maxSize;
+        private List<String> lines;
+        private long size;
+
+        RecordingOutputSink(OutputSink out, long maxSize) {
+            this.out = out;
+            this.maxSize = maxSize;
+            lines = new ArrayList<>();
+        }
+
+        @Override
+        public void print(String text) {
+            out.print(text);
+            lines = null;
+        }
+
+        @Override
+        public void println(String line) {
+            out.println(line);
+            if (lines != null) {
+                size += ResultCache.getSize(line);
+                if (size > maxSize) {
+                    lines = null;
+                } else {
+                    lines.add(line);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+    }
 
-        command.execute(data);
+    /** Output sink passing all output on while counting the written lines. */
+    private static class CountingOutputSink implements OutputSink {
+        private final OutputSink out;
+        private long lines;
+
+        CountingOutputSink(OutputSink out) {
+            this.out = out;
+        }
+
+        @Override
+        public void print(String text) {
+            out.print(text);
+        }
+
+        @Override
+        public void println(String line) {
+            out.println(line);
+            lines++;
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
     }
 
     /**
      * Create a command from given keyword and argument input.
      * @param commandInput command keyword
      * @param argumentInput command argument
+     * @param errorOut sink illegal arguments are reported to
      * @return Command as specified in the given input line. If command creation 
      * failed due to an illegal argument or command keyword, null will be returned.
      */
-    private LibraryCommand setupCommand(String commandInput, String argumentInput) {
+    private LibraryCommand setupCommand(String commandInput, String argumentInput, OutputSink errorOut) {
 
         CommandType cmdType = parseCommandType(commandInput);
         LibraryCommand command = null;
         if (cmdType != null) {
-            command = CommandFactory.createCommand(cmdType, argumentInput);
+            command = CommandFactory.createCommand(cmdType, argumentInput, errorOut);
         }
 
         return command;
@@ -0,0 +1,190 @@
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts, latencies and row numbers of the executed library commands, per command type.
+ *
+ * Rows scanned are the book entries visited by LibraryData on behalf of a command,
+ * counted per thread through countScannedRows. Rows emitted are the lines of output
+ * a command writes. Recording is lock free, so commands executed in parallel don't
+ * contend on the metrics.
+ *
+ * The metrics of all command interpreters are collected in a single global instance,
+ * which is also registered as MXBean under OBJECT_NAME.
+ */
+public class CommandMetrics implements CommandMetricsMXBean {
+
+    /** Name the global metrics are registered under with the platform MBean server. */
+    public static final String OBJECT_NAME = "library:type=CommandMetrics";
+
+    /** Book entries visited by LibraryData on the current thread since the last reset. */
+    private static final ThreadLocal<long[]> SCANNED_ROWS = ThreadLocal.withInitial(() -> new long[1]);
+
+    /** Execution latencies per command type. */
+    private final Map<CommandType, LatencyHistogram> latencies;
+    /** Rows scanned per command type. */
+    private final Map<CommandType, LongAdder> scannedRows;
+    /** Rows emitted per command type. */
+    private final Map<CommandType, LongAdder> emittedRows;
+    /** Latencies of parsing command lines, valid or not. */
+    private final LatencyHistogram parseLatency;
+    /** Number of command lines which could not be parsed. */
+    private final LongAdder invalidCommands;
+
+    /** Create new and empty metrics. */
+    public CommandMetrics() {
+        latencies = new EnumMap<>(CommandType.class);
+        scannedRows = new EnumMap<>(CommandType.class);
+        emittedRows = new EnumMap<>(CommandType.class);
+        for (CommandType type : CommandType.values()) {
+            latencies.put(type, new LatencyHistogram());
+            scannedRows.put(type, new LongAdder());
+            emittedRows.put(type, new LongAdder());
+        }
+        parseLatency = new LatencyHistogram();
+        invalidCommands = new LongAdder();
+    }
+
+    /** Holder of the global metrics, created and registered on first use. */
+    private static class Global {
+        static final CommandMetrics INSTANCE = createGlobal();
+
+        private static CommandMetrics createGlobal() {
+            CommandMetrics metrics = new CommandMetrics();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            } catch (JMException | SecurityException e) {
+                System.err.println("ERROR: Registering command metrics failed: " + e);
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * Get the metrics collected by all command interpreters.
+     * @return the global metrics
+     */
+    public static CommandMetrics getGlobal() {
+        return Global.INSTANCE;
+    }
+
+    /**
+     * Count book entries visited on the current thread, to be attributed
+     * to the command executed by the thread.
+     * @param rows number of visited book entries
+     */
+    public static void countScannedRows(long rows) {
+        SCANNED_ROWS.get()[0] += rows;
+    }
+
+    /**
+     * Get and reset the number of book entries visited on the current thread.
+     * @return number of entries visited since the last call
+     */
+    static long takeScannedRows() {
+        long[] rows = SCANNED_ROWS.get();
+        long scanned = rows[0];
+        rows[0] = 0;
+        return scanned;
+    }
+
+    /**
+     * Record parsing a command line.
+     * @param nanos time taken for parsing in nanoseconds
+     * @param valid whether a command has been created from the line
+     */
+    public void recordParse(long nanos, boolean valid) {
+        parseLatency.record(nanos);
+        if (!valid) {
+            invalidCommands.increment();
+        }
+    }
+
+    /**
+     * Record the execution of a command.
+     * @param type type of the executed command
+     * @param nanos execution time in nanoseconds
+     * @param scanned number of book entries visited
+     * @param emitted number of output lines written
+     * @throws NullPointerException if the given type is null
+     */
+    public void recordExecution(CommandType type, long nanos, long scanned, long emitted) {
+        Objects.requireNonNull(type, "Given command type must not be null.");
+        latencies.get(type).record(nanos);
+        scannedRows.get(type).add(scanned);
+        emittedRows.get(type).add(emitted);
+    }
+
+    @Override
+    public long getCommandCount() {
+        long count = 0;
+        for (LatencyHistogram latency : latencies.values()) {
+            count += latency.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getInvalidCommandCount() {
+        return invalidCommands.sum();
+    }
+
+    @Override
+    public Map<String, CommandStats> getCommandStats() {
+        Map<String, CommandStats> stats = new LinkedHashMap<>();
+        for (CommandType type : CommandType.values()) {
+            if (latencies.get(type).getCount() > 0) {
+                stats.put(type.name(), new CommandStats(latencies.get(type),
+                        scannedRows.get(type).sum(), emittedRows.get(type).sum()));
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public CommandStats getParseStats() {
+        return new CommandStats(parseLatency, 0, 0);
+    }
+
+    @Override
+    public void reset() {
+        for (CommandType type : CommandType.values()) {
+            latencies.get(type).reset();
+            scannedRows.get(type).reset();
+            emittedRows.get(type).reset();
+        }
+        parseLatency.reset();
+        invalidCommands.reset();
+    }
+
+    /**
+     * Write a table of the metrics of all executed command types.
+     * @param out sink the table is written to
+     * @throws NullPointerException if the given sink is null
+     */
+    public void report(OutputSink out) {
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+        String format = "%-8s %8s %10s %10s %10s %10s %10s %12s %12s";
+        out.println(String.format(Locale.ROOT, format, "command", "count", "mean us", "p50 us", "p90 us",
+                "p99 us", "max us", "scanned", "emitted"));
+        for (Map.Entry<String, CommandStats> entry : getCommandStats().entrySet()) {
+            CommandStats stats = entry.getValue();
+            out.println(String.format(Locale.ROOT, format, entry.getKey(), stats.getCount(),
+                    String.format(Locale.ROOT, "%.1f", stats.getMeanMicros()), stats.getP50Micros(),
+                    stats.getP90Micros(), stats.getP99Micros(), stats.getMaxMicros(),
+                    stats.getRowsScanned(), stats.getRowsEmitted()));
+        }
+        CommandStats parse = getParseStats();
+        out.println(String.format(Locale.ROOT, format, "(parse)", parse.getCount(),
+                String.format(Locale.ROOT, "%.1f", parse.getMeanMicros()), parse.getP50Micros(),
+                parse.getP90Micros(), parse.getP99Micros(), parse.getMaxMicros(), "-", "-"));
+        out.println(getInvalidCommandCount() + " invalid command lines.");
+    }
+}
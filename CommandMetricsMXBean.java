@@ -0,0 +1,35 @@
+import java.util.Map;
+
+/**
+ * Management interface of the command metrics, registered with the platform
+ * MBean server under CommandMetrics.OBJECT_NAME.
+ */
+public interface CommandMetricsMXBean {
+
+    /**
+     * Get the number of executed commands of all types.
+     * @return number of executed commands
+     */
+    long getCommandCount();
+
+    /**
+     * Get the number of command lines which could not be parsed.
+     * @return number of invalid command lines
+     */
+    long getInvalidCommandCount();
+
+    /**
+     * Get the statistics of all command types executed at least once.
+     * @return statistics by command type name
+     */
+    Map<String, CommandStats> getCommandStats();
+
+    /**
+     * Get the statistics of parsing command lines into commands.
+     * @return parse statistics, without rows
+     */
+    CommandStats getParseStats();
+
+    /** Remove all recorded metrics. */
+    void reset();
+}
@@ -0,0 +1,104 @@
+/**
+ * Statistics of the executions of one command type, taken at one point in time.
+ * All latencies are given in microseconds.
+ */
+public class CommandStats {
+
+    /** Number of executions. */
+    private final long count;
+    /** Mean execution latency. */
+    private final double meanMicros;
+    /** Median execution latency. */
+    private final long p50Micros;
+    /** 90th percentile of the execution latency. */
+    private final long p90Micros;
+    /** 99th percentile of the execution latency. */
+    private final long p99Micros;
+    /** Largest execution latency. */
+    private final long maxMicros;
+    /** Number of book entries visited by all executions. */
+    private final long rowsScanned;
+    /** Number of output lines written by all executions. */
+    private final long rowsEmitted;
+
+    /**
+     * Take the statistics of a command type.
+     * @param latency execution latencies of the command type in nanoseconds
+     * @param rowsScanned number of book entries visited by all executions
+     * @param rowsEmitted number of output lines written by all executions
+     */
+    CommandStats(LatencyHistogram latency, long rowsScanned, long rowsEmitted) {
+        count = latency.getCount();
+        meanMicros = latency.getMean() / 1000;
+        p50Micros = latency.getPercentile(50) / 1000;
+        p90Micros = latency.getPercentile(90) / 1000;
+        p99Micros = latency.getPercentile(99) / 1000;
+        maxMicros = latency.getMax() / 1000;
+        this.rowsScanned = rowsScanned;
+        this.rowsEmitted = rowsEmitted;
+    }
+
+    /**
+     * Get the number of executions.
+     * @return number of executions
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the mean execution latency.
+     * @return mean latency in microseconds
+     */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * Get the median execution latency.
+     * @return median latency in microseconds
+     */
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * Get the 90th percentile of the execution latency.
+     * @return 90th percentile in microseconds
+     */
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    /**
+     * Get the 99th percentile of the execution latency.
+     * @return 99th percentile in microseconds
+     */
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * Get the largest execution latency.
+     * @return largest latency in microseconds
+     */
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * Get the number of book entries visited by all executions.
+     * @return number of visited entries
+     */
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    /**
+     * Get the number of output lines written by all executions.
+     * @return number of output lines
+     */
+    public long getRowsEmitted() {
+        return rowsEmitted;
+    }
+}
@@ -6,5 +6,12 @@ public enum CommandType {
     SEARCH,
     LIST,
     REMOVE,
-    GROUP
+    GROUP,
+    STATS,
+    TOP,
+    RANGE,
+    SORT,
+    FUZZY,
+    QUERY,
+    SUGGEST
 }
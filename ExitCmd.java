@@ -19,9 +19,10 @@ public class ExitCmd extends LibraryCommand {
      * required for the exit command and does nothing.
      *
      * @param data book data to be considered for command execution.
+     * @param out sink the command output is written to.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, OutputSink out) {
         // nothing to do here
     }
     
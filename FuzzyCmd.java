@@ -0,0 +1,68 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Fuzzy command printing the titles most similar to a search text,
+ * so titles are found despite typos.
+ */
+public class FuzzyCmd extends LibraryCommand {
+    /** The number of titles to be printed. */
+    private static final int RESULT_COUNT = 10;
+    /** The text that user want to find, which may consist of several words.*/
+    private String searchText;
+
+    /**
+     * Create the fuzzy command and initialise it with
+     * the given command argument.
+     *
+     * @param argumentInput argument input as expected to be a text of at least three characters.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException     if any of the given parameters are null.
+     */
+    public FuzzyCmd(String argumentInput) {
+        super(CommandType.FUZZY, argumentInput);
+    }
+
+    /**
+     * Check validity for the argument user inputted and parse the argument in.
+     *
+     * @param argumentInput user input that expected to be the text to search titles for.
+     * @return true if the text has at least as many characters as a trigram and is not blank.
+     * @throws NullPointerException if the argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+        searchText = argumentInput.strip();
+        return searchText.length() >= TitleIndex.GRAM_LENGTH;
+    }
+
+    /**
+     * Search the library data for the titles most similar to the text and print
+     * them, the best match first.
+     *
+     * @param data book data to be considered for searching.
+     * @param out sink the matching titles are printed to.
+     * @throws NullPointerException if the library data is null.
+     */
+    @Override
+    public void execute(LibraryData data, OutputSink out) {
+        Objects.requireNonNull(data,"The data shouldn't be null.");
+        List<BookEntry> books = data.searchTitlesFuzzy(searchText, RESULT_COUNT);
+        for (BookEntry book : books) {
+            out.println(book.getTitle());
+        }
+        if (books.isEmpty()) {
+            out.println("No similar titles found for: " + searchText);
+        }
+    }
+
+    /**
+     * Fuzzy searching only reads the title index and titles of the loaded book entries.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
+}
@@ -11,13 +11,22 @@ public class GroupCmd extends LibraryCommand {
     private static final String DIGIT = "[0-9]";
     /** A string that represent the indentation of title. */
     private static final String TITLE_INDENT = "    ";
+    /** A string that represent space */
+    private static final String SPACE = " ";
+    /** Number of authors read from the library data at a time. */
+    private static final int AUTHOR_PAGE_SIZE = 256;
     /** the type input by the user, which should be either TITLE or AUTHOR */
-    private static String groupType;
+    private String groupType;
+    /** Number of authors to be skipped when grouping by author. */
+    private int offset;
+    /** Largest number of authors to be printed when grouping by author. */
+    private int limit;
     /**
      * Create the group command and initialise it with
      * the given command argument.
      *
-     * @param argumentInput argument input as expected to be either TITLE or AUTHOR.
+     * @param argumentInput argument input as expected to be either TITLE or AUTHOR,
+     *                      the latter optionally followed by offset and limit.
      * @throws IllegalArgumentException if given arguments are invalid
      * @throws NullPointerException     if any of the given parameters are null.
      */
@@ -28,40 +37,54 @@ public class GroupCmd extends LibraryCommand {
     /**
      * Check the validity of the argument input and parse it in.
      *
-     * @param argumentInput argument input which expected to be either TITLE or AUTHOR
+     * @param argumentInput argument input which expected to be either TITLE or AUTHOR,
+     *                      the latter optionally followed by the number of authors
+     *                      to be skipped and the number of authors to be printed
      * @return true if the argument are valid
      * @throws NullPointerException if the argument input is null
      */
     @Override
     protected boolean parseArguments(String argumentInput) {
         Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
-        groupType = argumentInput;
-        return (argumentInput.equals(TITLE) || argumentInput.equals(AUTHOR));
+        String[] arguments = argumentInput.split(SPACE);
+        groupType = arguments[0];
+        offset = 0;
+        limit = Integer.MAX_VALUE;
+        if (arguments.length == 3 && groupType.equals(AUTHOR)) {
+            try {
+                offset = Integer.parseInt(arguments[1]);
+                limit = Integer.parseInt(arguments[2]);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return offset >= 0 && limit >= 0;
+        }
+        return arguments.length == 1 && (groupType.equals(TITLE) || groupType.equals(AUTHOR));
     }
 
     /**
      * Group the book respect to the type inputted by user and print them accordingly in the console
      *
      * @param data book data for grouping
+     * @param out sink the groups are printed to
      * @throws NullPointerException if the data is null
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, OutputSink out) {
         Objects.requireNonNull(data,"The data shouldn't be null.");
-        List<BookEntry> books = data.getBookData();
-        if (checkBookSize(books)) return;
-        System.out.println("Grouped data by " + groupType);
+        if (checkBookSize(data.size(), out)) return;
+        out.println("Grouped data by " + groupType);
         if (groupType.equals(TITLE)){
-            groupByTitle(books);
+            groupByTitle(data.getBooksByTitle(), out);
         }
         else{
-            groupByAuthor(books);
+            groupByAuthor(data, out);
         }
     }
 
-    private boolean checkBookSize(List<BookEntry> books) {
-        if (books.size() == 0){
-            System.out.println("The library has no book entries.");
+    private boolean checkBookSize(int booksSize, OutputSink out) {
+        if (booksSize == 0){
+            out.println("The library has no book entries.");
             return true;
         }
         return false;
@@ -69,59 +92,46 @@ public class GroupCmd extends LibraryCommand {
 
     /**
      * Group the book according to their author and print them lexicographically
+     * by walking the sorted author index of the library data once.
      *
-     * @param books the list of books to be grouped
-     */
-    private void groupByAuthor(List<BookEntry> books) {
-        List<String> authors = getAllAuthor(books);
-        for (String author: authors){
-            System.out.println(DOUBLE_HASH + author);
-            searchAuthor(books, author);
-        }
-    }
-
-    /**
-     * Iterate the list of books and print their title if one of their authors are matched to the argument
-     * @param books the list of books iterate to
-     * @param author the author that search
-     */
-    private void searchAuthor(List<BookEntry> books, String author) {
-        for (BookEntry book:books){
-            List<String> bookAuthor = Arrays.asList(book.getAuthors());
-            if (bookAuthor.contains(author)){
-                System.out.println(TITLE_INDENT + book.getTitle());
-            }
-        }
-    }
-
-    /**
-     * Get all the author from the list of books
-     *
-     * @param books the list of books that the author come from
+     * The authors are read and printed a page at a time, and every page is passed
+     * on to the destination of the sink right away. So the first groups arrive after
+     * a constant time however many authors follow, and the library is never locked
+     * for more than one page.
      *
-     * @return a list of authors from the list of books
+     * @param data the library data to be grouped
+     * @param out sink the groups are printed to
      */
-    private List<String> getAllAuthor(List<BookEntry> books){
-        Set<String> allAuthorsSet = new HashSet<>(Collections.emptySet());
-        for (BookEntry book: books){
-            String[] authors = book.getAuthors();
-            allAuthorsSet.addAll(Arrays.asList(authors));
+    private void groupByAuthor(LibraryData data, OutputSink out) {
+        String lastAuthor = null;
+        int skip = offset;
+        int remaining = limit;
+        while (remaining > 0) {
+            List<String> authors = data.getAuthors(lastAuthor, skip, Math.min(AUTHOR_PAGE_SIZE, remaining));
+            if (authors.isEmpty()) {
+                break;
+            }
+            for (String author: authors){
+                out.println(DOUBLE_HASH + author);
+                for (BookEntry book: data.getBooksByAuthor(author)){
+                    out.println(TITLE_INDENT + book.getTitle());
+                }
+            }
+            out.flush();
+            lastAuthor = authors.get(authors.size() - 1);
+            skip = 0;
+            remaining -= authors.size();
         }
-        List<String> allAuthors = new ArrayList<>(allAuthorsSet);
-        Collections.sort(allAuthors);
-        return(allAuthors);
     }
 
-
     /**
      * Group the book according to their title and print them lexicographically
+     * by walking the books once, which are already sorted by the title index.
      *
-     * @param books the list of books to be grouped
+     * @param books the books sorted by title, digits last
+     * @param out sink the groups are printed to
      */
-
-    private void groupByTitle(List<BookEntry> books){
-        /* Sort the bookEntry by their title by implementing an own class. */
-        books.sort(new BookEntryTitleComparator());
+    private void groupByTitle(List<BookEntry> books, OutputSink out){
         char leadingChar = 0;
         boolean digitNotYetFound = true;
         for (BookEntry book: books){
@@ -129,13 +139,13 @@ public class GroupCmd extends LibraryCommand {
             char titleLeadingChar = title.toUpperCase().charAt(0);
             if (isNewLeadingAlphabet(leadingChar, titleLeadingChar)){
                 leadingChar = titleLeadingChar;
-                System.out.println(DOUBLE_HASH+ leadingChar);
+                out.println(DOUBLE_HASH+ leadingChar);
             }
             else if(isNewLeadingDigit(digitNotYetFound , titleLeadingChar)){
-                System.out.println(DOUBLE_HASH + DIGIT);
+                out.println(DOUBLE_HASH + DIGIT);
                 digitNotYetFound = false;
             }
-            System.out.println(TITLE_INDENT + title);
+            out.println(TITLE_INDENT + title);
         }
     }
 
@@ -147,26 +157,12 @@ public class GroupCmd extends LibraryCommand {
         return leadingChar != titleHeadingChar && !Character.isDigit(titleHeadingChar);
     }
 
-}
-
-/**
- * Implement a new class for comparing between two book entry which will compare according to their title but digit will
- * larger than alphabet as we want the digit come at last.
- */
-class BookEntryTitleComparator implements Comparator<BookEntry> {
-
+    /**
+     * Grouping only reads the titles and authors of the loaded book entries.
+     * @return true
+     */
     @Override
-    public int compare(BookEntry bookOne, BookEntry bookTwo) {
-        String BookOneTitle = bookOne.getTitle().toLowerCase();
-        String BookTwoTitle = bookTwo.getTitle().toLowerCase();
-        if (Character.isDigit(BookOneTitle.charAt(0)) && Character.isAlphabetic(BookTwoTitle.charAt(0))){
-            return 1;
-        }
-        else if (Character.isAlphabetic(BookOneTitle.charAt(0)) && Character.isDigit(BookTwoTitle.charAt(0))){
-            return -1;
-        }
-        else{
-            return (BookOneTitle.compareTo(BookTwoTitle));
-        }
+    public boolean isQuery() {
+        return true;
     }
 }
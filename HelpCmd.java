@@ -4,7 +4,7 @@
 public class HelpCmd extends LibraryCommand {
 
     /** Generated help output with information on command usage. */
-    private String helpOutput;
+    private final String helpOutput;
 
     /**
      * Create a help command.
@@ -24,10 +24,11 @@ public class HelpCmd extends LibraryCommand {
      * and corresponding usage to the console.
      *
      * @param data book data to be considered for command execution.
+     * @param out sink the command output is written to.
      */    
     @Override
-    public void execute(LibraryData data) {       
-        System.out.println(helpOutput);
+    public void execute(LibraryData data, OutputSink out) {       
+        out.println(helpOutput);
     }
 
     private String buildHelpOutput() {
@@ -40,7 +41,14 @@ public class HelpCmd extends LibraryCommand {
         bld.append(padding).append(CommandType.LIST).append(" [short|long]");
         bld.append(padding).append(CommandType.SEARCH).append(" <value>");
         bld.append(padding).append(CommandType.REMOVE).append(" TITLE|AUTHOR <value>");
-        bld.append(padding).append(CommandType.GROUP).append(" TITLE|AUTHOR");
+        bld.append(padding).append(CommandType.GROUP).append(" TITLE|AUTHOR|AUTHOR <offset> <limit>");
+        bld.append(padding).append(CommandType.STATS).append(" [RESET]");
+        bld.append(padding).append(CommandType.TOP).append(" RATING|PAGES <count>");
+        bld.append(padding).append(CommandType.RANGE).append(" RATING|PAGES <min> <max>");
+        bld.append(padding).append(CommandType.SORT).append(" RATING|PAGES [ASC|DESC]");
+        bld.append(padding).append(CommandType.FUZZY).append(" <text>");
+        bld.append(padding).append(CommandType.QUERY).append(" <query>, such as title:war AND author:tolstoy AND NOT rating<3");
+        bld.append(padding).append(CommandType.SUGGEST).append(" TITLE|AUTHOR <prefix>");
 
         return bld.toString();
     }
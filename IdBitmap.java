@@ -0,0 +1,408 @@
+import java.util.Arrays;
+
+/**
+ * Immutable compressed set of book entry ids, organised like a roaring bitmap.
+ *
+ * Ids are split into chunks of 65536 by their upper 16 bits. Every non-empty chunk
+ * is kept in a container holding the lower 16 bits of its ids: a sorted char array
+ * for up to ARRAY_MAX ids, otherwise a bitmap of 65536 bits. Sparse sets therefore
+ * take two bytes per id and dense sets one bit per id, and set operations on dense
+ * chunks combine 64 ids per machine word.
+ */
+public final class IdBitmap {
+
+    /** Largest number of ids kept in an array container. */
+    private static final int ARRAY_MAX = 4096;
+    /** Number of bits of an id selecting its chunk. */
+    private static final int CHUNK_BITS = 16;
+    /** Number of longs of a bitmap container. */
+    private static final int BITMAP_WORDS = (1 << CHUNK_BITS) / Long.SIZE;
+
+    /** Set without any ids. */
+    private static final IdBitmap EMPTY = new IdBitmap(new char[0], new Object[0], 0);
+
+    /** Upper 16 bits of the ids of every container, ascending. */
+    private final char[] keys;
+    /** Containers of the chunks, either char[] with the sorted lower bits or long[] bitmaps. */
+    private final Object[] containers;
+    /** Number of used keys and containers. */
+    private final int size;
+
+    private IdBitmap(char[] keys, Object[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Get the set without any ids.
+     * @return empty set
+     */
+    public static IdBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a set of the given ids.
+     * @param sortedIds ids in ascending order without duplicates, none of them negative
+     * @return set of the ids
+     */
+    public static IdBitmap of(IntList sortedIds) {
+        Builder builder = new Builder();
+        for (int i = 0; i < sortedIds.size(); i++) {
+            builder.add(sortedIds.get(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create a set of the given ids in any order.
+     * @param ids ids without duplicates, none of them negative
+     * @return set of the ids
+     */
+    public static IdBitmap ofUnsorted(int[] ids) {
+        int[] sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
+        Builder builder = new Builder();
+        for (int id : sortedIds) {
+            builder.add(id);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create a set of all ids from 0 up to the given end.
+     * @param end first id not to be included
+     * @return set of the ids below end
+     */
+    public static IdBitmap range(int end) {
+        Builder builder = new Builder();
+        for (int start = 0; start < end; start += 1 << CHUNK_BITS) {
+            int count = Math.min(end - start, 1 << CHUNK_BITS);
+            long[] words = new long[BITMAP_WORDS];
+            Arrays.fill(words, 0, count / Long.SIZE, -1L);
+            if (count % Long.SIZE != 0) {
+                words[count / Long.SIZE] = (1L << count % Long.SIZE) - 1;
+            }
+            builder.append((char) (start >>> CHUNK_BITS), normalize(words));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the number of ids in the set.
+     * @return number of ids
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += getCardinality(containers[i]);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Get all ids of the set.
+     * @return ids in ascending order
+     */
+    public int[] toArray() {
+        int[] ids = new int[cardinality()];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << CHUNK_BITS;
+            if (containers[i] instanceof char[]) {
+                for (char low : (char[]) containers[i]) {
+                    ids[count++] = high | low;
+                }
+            } else {
+                long[] words = (long[]) containers[i];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    for (long word = words[w]; word != 0; word &= word - 1) {
+                        ids[count++] = high | w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Get the ids contained in both this and the other set.
+     * @param other set to be intersected with
+     * @return intersection of both sets
+     */
+    public IdBitmap and(IdBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                builder.append(keys[i], and(containers[i++], other.containers[j++]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the ids contained in this or the other set.
+     * @param other set to be united with
+     * @return union of both sets
+     */
+    public IdBitmap or(IdBitmap other) {
+        Builder builder = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                builder.append(keys[i], containers[i++]);
+            } else if (i == size || keys[i] > other.keys[j]) {
+                builder.append(other.keys[j], other.containers[j++]);
+            } else {
+                builder.append(keys[i], or(containers[i++], other.containers[j++]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the ids contained in this but not in the other set.
+     * @param other set of the ids to be left out
+     * @return difference of both sets
+     */
+    public IdBitmap andNot(IdBitmap other) {
+        Builder builder = new Builder();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                builder.append(keys[i], andNot(containers[i], other.containers[j]));
+            } else {
+                builder.append(keys[i], containers[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Object and(Object first, Object second) {
+        if (first instanceof char[] && second instanceof char[]) {
+            char[] a = (char[]) first;
+            char[] b = (char[]) second;
+            char[] result = new char[Math.min(a.length, b.length)];
+            int count = 0;
+            for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i++];
+                    j++;
+                }
+            }
+            return trim(result, count);
+        } else if (first instanceof char[]) {
+            return filter((char[]) first, (long[]) second, true);
+        } else if (second instanceof char[]) {
+            return filter((char[]) second, (long[]) first, true);
+        }
+        long[] a = (long[]) first;
+        long[] b = (long[]) second;
+        long[] words = new long[BITMAP_WORDS];
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            words[w] = a[w] & b[w];
+        }
+        return normalize(words);
+    }
+
+    private static Object or(Object first, Object second) {
+        if (first instanceof char[] && second instanceof char[]) {
+            char[] a = (char[]) first;
+            char[] b = (char[]) second;
+            char[] result = new char[a.length + b.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length || j < b.length) {
+                if (j == b.length || (i < a.length && a[i] < b[j])) {
+                    result[count++] = a[i++];
+                } else if (i == a.length || a[i] > b[j]) {
+                    result[count++] = b[j++];
+                } else {
+                    result[count++] = a[i++];
+                    j++;
+                }
+            }
+            return count <= ARRAY_MAX ? trim(result, count) : toBitmap(result, count);
+        } else if (first instanceof char[] || second instanceof char[]) {
+            char[] values = (char[]) (first instanceof char[] ? first : second);
+            long[] words = ((long[]) (first instanceof char[] ? second : first)).clone();
+            for (char value : values) {
+                words[value / Long.SIZE] |= 1L << value;
+            }
+            return words;
+        }
+        long[] a = (long[]) first;
+        long[] b = (long[]) second;
+        long[] words = new long[BITMAP_WORDS];
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            words[w] = a[w] | b[w];
+        }
+        return words;
+    }
+
+    private static Object andNot(Object first, Object second) {
+        if (first instanceof char[] && second instanceof char[]) {
+            char[] a = (char[]) first;
+            char[] b = (char[]) second;
+            char[] result = new char[a.length];
+            int count = 0;
+            for (int i = 0, j = 0; i < a.length; i++) {
+                while (j < b.length && b[j] < a[i]) {
+                    j++;
+                }
+                if (j == b.length || b[j] != a[i]) {
+                    result[count++] = a[i];
+                }
+            }
+            return trim(result, count);
+        } else if (first instanceof char[]) {
+            return filter((char[]) first, (long[]) second, false);
+        }
+        long[] words = ((long[]) first).clone();
+        if (second instanceof char[]) {
+            for (char value : (char[]) second) {
+                words[value / Long.SIZE] &= ~(1L << value);
+            }
+        } else {
+            long[] b = (long[]) second;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= ~b[w];
+            }
+        }
+        return normalize(words);
+    }
+
+    /**
+     * Keep the values of an array container which are set, or not set, in a bitmap container.
+     * @param values sorted values
+     * @param words bitmap the values are looked up in
+     * @param set true to keep the values set in the bitmap, false to keep the others
+     * @return array container of the kept values, null if there are none
+     */
+    private static char[] filter(char[] values, long[] words, boolean set) {
+        char[] result = new char[values.length];
+        int count = 0;
+        for (char value : values) {
+            if (((words[value / Long.SIZE] & 1L << value) != 0) == set) {
+                result[count++] = value;
+            }
+        }
+        return trim(result, count);
+    }
+
+    private static char[] trim(char[] values, int count) {
+        return count == 0 ? null : count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    private static long[] toBitmap(char[] values, int count) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int i = 0; i < count; i++) {
+            words[values[i] / Long.SIZE] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    /**
+     * Turn a bitmap container into an array container if it holds few enough values.
+     * @param words bitmap container
+     * @return the smaller container, null if the bitmap is empty
+     */
+    private static Object normalize(long[] words) {
+        int cardinality = getCardinality(words);
+        if (cardinality > ARRAY_MAX) {
+            return words;
+        }
+        char[] values = new char[cardinality];
+        int count = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            for (long word = words[w]; word != 0; word &= word - 1) {
+                values[count++] = (char) (w * Long.SIZE + Long.numberOfTrailingZeros(word));
+            }
+        }
+        return trim(values, count);
+    }
+
+    private static int getCardinality(Object container) {
+        if (container instanceof char[]) {
+            return ((char[]) container).length;
+        }
+        int cardinality = 0;
+        for (long word : (long[]) container) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    /** Collects containers in ascending order of their keys. */
+    private static final class Builder {
+        private char[] keys = new char[4];
+        private Object[] containers = new Object[4];
+        private int size;
+        /** Lower bits of the ids of the chunk currently added to by add. */
+        private char[] chunk = new char[ARRAY_MAX + 1];
+        private int chunkSize;
+        private long chunkKey = -1;
+        private long[] chunkWords;
+
+        /** Add an id greater than all ids added before. */
+        void add(int id) {
+            char key = (char) (id >>> CHUNK_BITS);
+            if (key != chunkKey) {
+                finishChunk();
+                chunkKey = key;
+            }
+            char low = (char) id;
+            if (chunkWords != null) {
+                chunkWords[low / Long.SIZE] |= 1L << low;
+            } else if (chunkSize < ARRAY_MAX) {
+                chunk[chunkSize++] = low;
+            } else {
+                chunk[chunkSize++] = low;
+                chunkWords = toBitmap(chunk, chunkSize);
+            }
+        }
+
+        /** Append a container with a key greater than all keys before, null containers are skipped. */
+        void append(char key, Object container) {
+            if (container == null) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = key;
+            containers[size++] = container;
+        }
+
+        private void finishChunk() {
+            if (chunkKey >= 0) {
+                append((char) chunkKey, chunkWords != null ? chunkWords : Arrays.copyOf(chunk, chunkSize));
+            }
+            chunkSize = 0;
+            chunkWords = null;
+        }
+
+        IdBitmap build() {
+            finishChunk();
+            chunkKey = -1;
+            return size == 0 ? EMPTY : new IdBitmap(keys, containers, size);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Hash table from hash codes to groups of ids of equal book entry values, such as
+ * all entries with the same title, without keeping the values themselves.
+ *
+ * Every distinct value takes a single slot, found by comparing the value of the first
+ * id of a group, so adding many entries with the same value does not grow the probe
+ * sequences. The table uses open addressing with linear probing. Groups of a single
+ * id keep it in the slot, larger groups in an IntList.
+ *
+ * Ids are expected to be added in ascending order and are never taken out again.
+ * Ids of removed entries are skipped by lookups instead and dropped by clearing and
+ * refilling the index.
+ */
+public class IdGroupIndex {
+
+    /** Initial number of slots, always a power of two. */
+    private static final int INITIAL_CAPACITY = 16;
+    /** Marker for a free slot. */
+    private static final int FREE = -1;
+
+    /** Hash code per slot. */
+    private int[] hashes;
+    /** First id of the group per slot, FREE if the slot is unused. */
+    private int[] firstIds;
+    /** Group per slot, null for groups holding only their first id. */
+    private Group[] groups;
+    /** Number of used slots. */
+    private int size;
+
+    /** Create a new and empty index. */
+    public IdGroupIndex() {
+        clear();
+    }
+
+    /**
+     * Add an id to the group of its value, creating the group if there is none yet.
+     * @param hash hash code of the value of the entry with the given id
+     * @param id id to be added, greater than all ids added before
+     * @param sameValue condition telling whether a stored id has the same value
+     */
+    public void add(int hash, int id, IntPredicate sameValue) {
+        int slot = home(hash);
+        for (; firstIds[slot] != FREE; slot = next(slot)) {
+            if (hashes[slot] == hash && sameValue.test(firstIds[slot])) {
+                if (groups[slot] == null) {
+                    groups[slot] = new Group(firstIds[slot]);
+                }
+                groups[slot].ids.add(id);
+                return;
+            }
+        }
+        /* Keep at least half of the slots free so probe sequences stay short. */
+        if (2 * (size + 1) > firstIds.length) {
+            resize(2 * firstIds.length);
+            slot = findFreeSlot(hash);
+        }
+        hashes[slot] = hash;
+        firstIds[slot] = id;
+        size++;
+    }
+
+    /**
+     * Find the smallest id of the group of a value which fulfils the given condition.
+     * Ids failing the condition are skipped by later lookups of the group as well,
+     * so the condition must not hold again for an id once it failed.
+     * @param hash hash code of the value to be looked up
+     * @param sameValue condition telling whether a stored id has the looked up value
+     * @param live condition the returned id has to fulfil, usually not being removed
+     * @return the smallest matching id or -1 if no stored id matches
+     */
+    public int findFirst(int hash, IntPredicate sameValue, IntPredicate live) {
+        for (int slot = home(hash); firstIds[slot] != FREE; slot = next(slot)) {
+            if (hashes[slot] == hash && sameValue.test(firstIds[slot])) {
+                if (groups[slot] == null) {
+                    return live.test(firstIds[slot]) ? firstIds[slot] : -1;
+                }
+                return groups[slot].findFirst(live);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of distinct values.
+     * @return number of groups
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Remove all ids from the index. */
+    public void clear() {
+        hashes = new int[INITIAL_CAPACITY];
+        firstIds = new int[INITIAL_CAPACITY];
+        groups = new Group[INITIAL_CAPACITY];
+        Arrays.fill(firstIds, FREE);
+        size = 0;
+    }
+
+    private int home(int hash) {
+        /* Mix the high bits in, since only the low bits select the slot. */
+        return (hash ^ (hash >>> 16)) & (firstIds.length - 1);
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (firstIds.length - 1);
+    }
+
+    private int findFreeSlot(int hash) {
+        int slot = home(hash);
+        while (firstIds[slot] != FREE) {
+            slot = next(slot);
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] oldHashes = hashes;
+        int[] oldFirstIds = firstIds;
+        Group[] oldGroups = groups;
+        hashes = new int[capacity];
+        firstIds = new int[capacity];
+        groups = new Group[capacity];
+        Arrays.fill(firstIds, FREE);
+        for (int slot = 0; slot < oldFirstIds.length; slot++) {
+            if (oldFirstIds[slot] != FREE) {
+                int newSlot = findFreeSlot(oldHashes[slot]);
+                hashes[newSlot] = oldHashes[slot];
+                firstIds[newSlot] = oldFirstIds[slot];
+                groups[newSlot] = oldGroups[slot];
+            }
+        }
+    }
+
+    /** Ids of a value shared by more than one entry. */
+    private static final class Group {
+        /** Ids of the group in ascending order, including its first id. */
+        private final IntList ids;
+        /** Position in ids before which all ids failed a lookup condition. */
+        private int start;
+
+        Group(int firstId) {
+            ids = new IntList();
+            ids.add(firstId);
+            start = 0;
+        }
+
+        int findFirst(IntPredicate live) {
+            while (start < ids.size()) {
+                int id = ids.get(start);
+                if (live.test(id)) {
+                    return id;
+                }
+                start++;
+            }
+            return -1;
+        }
+    }
+}
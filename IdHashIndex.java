@@ -0,0 +1,176 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Hash table from hash codes to book entry ids, without keeping the hashed
+ * objects themselves.
+ *
+ * Different objects can share a hash code, so lookups take a condition which compares
+ * the actual objects for the ids stored with a hash code. The table uses open
+ * addressing with linear probing on two parallel int arrays.
+ */
+public class IdHashIndex {
+
+    /** Initial number of slots, always a power of two. */
+    private static final int INITIAL_CAPACITY = 16;
+    /** Marker for a free slot. */
+    private static final int FREE = -1;
+
+    /** Hash code per slot. */
+    private int[] hashes;
+    /** Id per slot, FREE if the slot is unused. */
+    private int[] ids;
+    /** Number of used slots. */
+    private int size;
+
+    /** Create a new and empty index. */
+    public IdHashIndex() {
+        clear();
+    }
+
+    /**
+     * Add an id for the given hash code.
+     * @param hash hash code of the object with the given id
+     * @param id id to be added
+     */
+    public void add(int hash, int id) {
+        /* Keep at least half of the slots free so probe sequences stay short. */
+        if (2 * (size + 1) > ids.length) {
+            resize(2 * ids.length);
+        }
+        int slot = findFreeSlot(hash);
+        hashes[slot] = hash;
+        ids[slot] = id;
+        size++;
+    }
+
+    /**
+     * Find an id stored for the given hash code which fulfils the given condition.
+     * @param hash hash code to be looked up
+     * @param condition condition the id has to fulfil, usually comparing the objects
+     * @return the first matching id or -1 if no stored id matches
+     */
+    public int find(int hash, IntPredicate condition) {
+        for (int slot = home(hash); ids[slot] != FREE; slot = next(slot)) {
+            if (hashes[slot] == hash && condition.test(ids[slot])) {
+                return ids[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the given id stored for the given hash code.
+     * @param hash hash code the id has been added for
+     * @param id id to be removed
+     * @return true if the id was stored and has been removed
+     */
+    public boolean remove(int hash, int id) {
+        int slot = home(hash);
+        while (ids[slot] != FREE && (hashes[slot] != hash || ids[slot] != id)) {
+            slot = next(slot);
+        }
+        if (ids[slot] == FREE) {
+            return false;
+        }
+        /* Move following entries of the probe sequence back, so no lookup ends early at the gap. */
+        int gap = slot;
+        for (slot = next(gap); ids[slot] != FREE; slot = next(slot)) {
+            int home = home(hashes[slot]);
+            if (((slot - home) & (ids.length - 1)) >= ((slot - gap) & (ids.length - 1))) {
+                hashes[gap] = hashes[slot];
+                ids[gap] = ids[slot];
+                gap = slot;
+            }
+        }
+        ids[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    /**
+     * Get the number of stored ids.
+     * @return number of ids
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Remove all ids from the index. */
+    public void clear() {
+        hashes = new int[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        Arrays.fill(ids, FREE);
+        size = 0;
+    }
+
+    /**
+     * Write the index to a library snapshot.
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(ids.length);
+        out.writeInt(size);
+        for (int slot = 0; slot < ids.length; slot++) {
+            out.writeInt(hashes[slot]);
+            out.writeInt(ids[slot]);
+        }
+    }
+
+    /**
+     * Replace the content of the index with an index read from a library snapshot.
+     * @param in buffer to read from
+     * @throws IOException if the buffer does not contain a complete index
+     */
+    public void readFrom(ByteBuffer in) throws IOException {
+        int capacity = SnapshotIO.readLength(in);
+        int storedSize = SnapshotIO.readLength(in);
+        if (Integer.bitCount(capacity) != 1 || 2 * storedSize > capacity
+                || in.remaining() < 2L * Integer.BYTES * capacity) {
+            throw new IOException("Snapshot contains a malformed hash index.");
+        }
+        hashes = new int[capacity];
+        ids = new int[capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            hashes[slot] = in.getInt();
+            ids[slot] = in.getInt();
+        }
+        size = storedSize;
+    }
+
+    private int home(int hash) {
+        /* Mix the high bits in, since only the low bits select the slot. */
+        return (hash ^ (hash >>> 16)) & (ids.length - 1);
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (ids.length - 1);
+    }
+
+    private int findFreeSlot(int hash) {
+        int slot = home(hash);
+        while (ids[slot] != FREE) {
+            slot = next(slot);
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        int[] oldHashes = hashes;
+        int[] oldIds = ids;
+        hashes = new int[capacity];
+        ids = new int[capacity];
+        Arrays.fill(ids, FREE);
+        for (int slot = 0; slot < oldIds.length; slot++) {
+            if (oldIds[slot] != FREE) {
+                int newSlot = findFreeSlot(oldHashes[slot]);
+                hashes[newSlot] = oldHashes[slot];
+                ids[newSlot] = oldIds[slot];
+            }
+        }
+    }
+}
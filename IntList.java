@@ -0,0 +1,106 @@
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive int values, used for lists of book entry ids
+ * without boxing every id into an Integer.
+ */
+public final class IntList {
+
+    /** Capacity of a list created without explicit capacity. */
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /** Backing array of the list, only the first size values are used. */
+    private int[] values;
+    /** Number of values in the list. */
+    private int size;
+
+    /** Create an empty list. */
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty list with the given initial capacity.
+     * @param capacity initial capacity of the list
+     * @throws IllegalArgumentException if the given capacity is negative
+     */
+    public IntList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Given capacity must not be negative: " + capacity);
+        }
+        values = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Append a value to the end of the list.
+     * @param value value to be appended
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(DEFAULT_CAPACITY, size + (size >> 1)));
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Get the value at the given position.
+     * @param index position of the value
+     * @return value at the given position
+     * @throws IndexOutOfBoundsException if the index is not within the list
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Get the number of values in the list.
+     * @return number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the list has no values.
+     * @return true if the list is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copy the values of the list into a new array.
+     * @return array with the values of the list in list order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Intersect this list with another list. Both lists have to be sorted
+     * in ascending order.
+     * @param other sorted list to be intersected with
+     * @return new sorted list with the values contained in both lists
+     */
+    public IntList intersect(IntList other) {
+        IntList result = new IntList(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (values[i] < other.values[j]) {
+                i++;
+            } else if (values[i] > other.values[j]) {
+                j++;
+            } else {
+                result.add(values[i]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+}
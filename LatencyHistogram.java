@@ -0,0 +1,134 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with logarithmic buckets.
+ *
+ * As in an HdrHistogram, every power of two is split into SUB_BUCKETS linear buckets,
+ * so every recorded value is known with a relative error below 1 / SUB_BUCKETS over
+ * the full range of long values, in constant memory. Recording is lock free and can
+ * be done from many threads at once.
+ */
+public class LatencyHistogram {
+
+    /** Number of bits of a value kept exactly, all lower bits are dropped. */
+    private static final int SUB_BUCKET_BITS = 5;
+    /** Number of buckets per power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Number of buckets needed for all non negative long values. */
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** Number of recorded values per bucket. */
+    private final AtomicLongArray buckets;
+    /** Number of recorded values. */
+    private final LongAdder count;
+    /** Sum of the recorded values. */
+    private final LongAdder sum;
+    /** Largest recorded value. */
+    private final LongAccumulator max;
+
+    /** Create a new and empty histogram. */
+    public LatencyHistogram() {
+        buckets = new AtomicLongArray(BUCKET_COUNT);
+        count = new LongAdder();
+        sum = new LongAdder();
+        max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Record a value.
+     * @param nanos value to be recorded, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(getBucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Get the number of recorded values.
+     * @return number of values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the mean of the recorded values.
+     * @return mean value, 0 if no value has been recorded
+     */
+    public double getMean() {
+        long values = count.sum();
+        return values == 0 ? 0 : (double) sum.sum() / values;
+    }
+
+    /**
+     * Get the largest recorded value.
+     * @return largest value, 0 if no value has been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the value below or at which the given percentage of the recorded values lie.
+     * The result is the largest value of the bucket the percentile falls into.
+     * @param percentile percentage between 0 and 100
+     * @return the percentile value, 0 if no value has been recorded
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Given percentile must be between 0 and 100: " + percentile);
+        }
+        long values = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            values += buckets.get(i);
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * values));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT && values > 0; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(getHighestValue(i), getMax());
+            }
+        }
+        return 0;
+    }
+
+    /** Remove all recorded values. Values recorded at the same time may be partially kept. */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Get the bucket of a value. Values below 2 * SUB_BUCKETS have a bucket of their
+     * own, larger values share a bucket with all values having the same highest
+     * SUB_BUCKET_BITS + 1 bits.
+     * @param value non negative value
+     * @return index of the bucket
+     */
+    private static int getBucket(long value) {
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Get the largest value falling into a bucket.
+     * @param bucket index of the bucket
+     * @return largest value of the bucket
+     */
+    private static long getHighestValue(int bucket) {
+        int shift = Math.max(0, bucket / SUB_BUCKETS - 1);
+        long lowest = (long) (bucket - shift * SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
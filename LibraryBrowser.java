@@ -1,3 +1,5 @@
+import java.nio.file.Path;
+import java.util.Objects;
 import java.util.Scanner;
 
 /**
@@ -7,10 +9,19 @@ import java.util.Scanner;
  */
 public class LibraryBrowser {
 
+    /** Size in bytes of the write-ahead log from which on it is compacted after a command. */
+    private static final long LOG_COMPACTION_SIZE = 64L * 1024 * 1024;
+
     /** Book data currently loaded. */
     private final LibraryData data;
+    /** File the book data is saved to on exit, null if it is not to be saved. */
+    private final Path snapshotFile;
     /** Create and handle commands created via user input. */
     private final CommandInterpreter cmdIntrp;
+    /** Buffered console output of the executed commands. */
+    private final BufferedOutputSink console;
+    /** Size of the write-ahead log after it was last rewritten. */
+    private long rewrittenLogSize;
     /** 
      * Used to read user input from StdIO. 
      * Only close shortly before program exit.
@@ -21,8 +32,30 @@ public class LibraryBrowser {
      * Create library browser.
      */
     public LibraryBrowser() {
-        data = new LibraryData();
+        this(new LibraryData());
+    }
+
+    /**
+     * Create library browser working on the given library data.
+     * @param data book data to be browsed
+     * @throws NullPointerException if the given data is null
+     */
+    public LibraryBrowser(LibraryData data) {
+        this(data, null);
+    }
+
+    /**
+     * Create library browser working on the given library data, which
+     * is saved as snapshot to the given file when the browser exits.
+     * @param data book data to be browsed
+     * @param snapshotFile snapshot file to be written on exit, or null to not save the data
+     * @throws NullPointerException if the given data is null
+     */
+    public LibraryBrowser(LibraryData data, Path snapshotFile) {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+        this.snapshotFile = snapshotFile;
         cmdIntrp = new CommandInterpreter();
+        console = BufferedOutputSink.toConsole();
         stdInScan = new Scanner(System.in);
     }
 
@@ -30,6 +63,11 @@ public class LibraryBrowser {
     public void run() {
         mainLoop();
         stdInScan.close();
+        if (snapshotFile != null && data.saveSnapshot(snapshotFile, console)) {
+            console.println("Library saved to snapshot: " + snapshotFile);
+        }
+        data.closeLog(console);
+        console.flush();
     }
 
     /**
@@ -57,12 +95,36 @@ public class LibraryBrowser {
                 if (command instanceof ExitCmd) {
                     exit = true;
                 } else {
-                    cmdIntrp.executeCommand(command, data);
+                    try {
+                        cmdIntrp.executeCommand(command, data, console);
+                    } catch (RuntimeException e) {
+                        console.println("ERROR: " + e.getMessage());
+                    }
+                    console.flush();
+                    compactLog();
                 }
             }           
         }
     }
 
+    /**
+     * Compact the write-ahead log of the book data once it has grown large, which
+     * keeps replaying it on startup short. With a snapshot file, a snapshot is saved,
+     * which empties the log. Without one, the log is rewritten to hold the loaded
+     * entries only, once it has grown to twice its size after the last rewrite.
+     */
+    private void compactLog() {
+        long logSize = data.getLogSize();
+        if (snapshotFile != null && logSize > LOG_COMPACTION_SIZE) {
+            data.saveSnapshot(snapshotFile, console);
+            console.flush();
+        } else if (snapshotFile == null && logSize > Math.max(LOG_COMPACTION_SIZE, 2 * rewrittenLogSize)) {
+            data.rewriteLog(console);
+            console.flush();
+            rewrittenLogSize = data.getLogSize();
+        }
+    }
+
     /**
      * Display user command prompt and 
      * read corresponding input from StdIn.
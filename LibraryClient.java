@@ -0,0 +1,83 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Command line client for a LibraryServer. It sends the command lines read from
+ * standard input to the server and prints the server output until the server
+ * closes the connection.
+ */
+public class LibraryClient {
+
+    /** Host connected to if none is given. */
+    private static final String DEFAULT_HOST = "localhost";
+
+    /**
+     * Connect to a library server.
+     * @param args optionally the server host, followed by the server port
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("ERROR: Expected arguments: [host] port");
+            return;
+        }
+        String host = args.length == 2 ? args[0] : DEFAULT_HOST;
+        int port;
+        try {
+            port = Integer.parseInt(args[args.length - 1]);
+        } catch (NumberFormatException e) {
+            System.err.println("ERROR: Invalid port: " + args[args.length - 1]);
+            return;
+        }
+
+        try (Socket socket = new Socket(host, port)) {
+            Thread receiver = new Thread(() -> copyOutput(socket));
+            receiver.start();
+            sendCommands(socket);
+            receiver.join();
+        } catch (IOException e) {
+            System.err.println("ERROR: Connection to library server failed: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send every line of standard input to the server, then signal the end of input.
+     * @param socket connection to the server
+     * @throws IOException if sending fails
+     */
+    private static void sendCommands(Socket socket) throws IOException {
+        BufferedReader stdIn = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        String inputLine;
+        while ((inputLine = stdIn.readLine()) != null && !out.checkError()) {
+            out.println(inputLine);
+        }
+        socket.shutdownOutput();
+    }
+
+    /**
+     * Copy the server output to standard output until the server closes the connection.
+     * @param socket connection to the server
+     */
+    private static void copyOutput(Socket socket) {
+        try {
+            InputStream in = socket.getInputStream();
+            OutputStream stdOut = System.out;
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                stdOut.write(buffer, 0, read);
+                stdOut.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR: Receiving from library server failed: " + e);
+        }
+    }
+}
@@ -3,11 +3,18 @@ import java.util.Objects;
 /**
  * Super class for all commands which ties
  * command creation and initialisation using arguments together.
+ *
+ * Commands are immutable: all arguments are parsed while the command is created
+ * and executing a command never changes it. So a parsed command can be executed
+ * any number of times, also by several threads at once, and subclasses must not
+ * keep any state in static fields or between executions.
  */
 public abstract class LibraryCommand {
 
 	/** This commands specific type. */
-	private CommandType type;
+	private final CommandType type;
+	/** Argument input this command was created with. */
+	private final String argumentInput;
 
 	/**
 	 * Create the specified command and initialise it with 
@@ -22,6 +29,7 @@ public abstract class LibraryCommand {
 		Objects.requireNonNull(type, "Given type must not be null.");
 		Objects.requireNonNull(argumentInput, "Given argument input must not be null.");
 		this.type = type;
+		this.argumentInput = argumentInput;
 
 		if (!parseArguments(argumentInput)) {
 		    throw new IllegalArgumentException("Invalid argument for " + type + " command: " + argumentInput);
@@ -36,14 +44,35 @@ public abstract class LibraryCommand {
 		return type;
 	}
 
+	/**
+	 * The argument input this command was created with.
+	 * @return argument input of this command
+	 */
+	public String getArgumentInput() {
+		return argumentInput;
+	}
+
+	/**
+	 * Whether this command only reads the book data, so its output depends on
+	 * nothing but its arguments and the loaded book entries. The output of such
+	 * commands may be cached as long as the book data does not change.
+	 * In this default version, commands are not considered queries.
+	 * 
+	 * @return true if the output of this command may be cached
+	 */
+	public boolean isQuery() {
+		return false;
+	}
+
 	/**
 	 * Execute the specific command.
 	 * 
 	 * Subclasses must override this method to specify corresponding behaviour.
 	 * 
 	 * @param data book data to be considered for command execution.
+	 * @param out sink the command output is written to.
 	 */
-	public abstract void execute(LibraryData data);
+	public abstract void execute(LibraryData data, OutputSink out);
 
 	/**
 	 * Parses the given command arguments and initialised necessary
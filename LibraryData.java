@@ -1,53 +1,1203 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /** 
  * Class responsible for handling currently loaded
  * book data and loading additional data from file.
+ * 
+ * Library data can be shared between threads. Queries run in parallel, while
+ * changes are made one at a time. Book data files are parsed without holding
+ * any lock and merged in batches, so queries never wait for a whole file to be
+ * loaded. All returned lists are unaffected by later changes.
  */
 public class LibraryData {
 
-    /** Currently loaded book data. */
-    private final List<BookEntry> books;
+    /** File size in bytes from which on book data files are streamed instead of read at once. */
+    private static final long STREAMING_THRESHOLD = 64L * 1024 * 1024;
+    /** File size in bytes from which on book data files are read through a memory mapping. */
+    private static final long MAPPING_THRESHOLD = 1024L * 1024 * 1024;
+    /** Number of book entries merged while holding the write lock at a time. */
+    private static final int MERGE_BATCH_SIZE = 10_000;
+    /** Minimum number of removed slots before the book data is compacted. */
+    private static final int MIN_COMPACTION_SLOTS = 1024;
+    /** First bytes of every snapshot file, "LBSN" in ASCII. */
+    private static final int SNAPSHOT_MAGIC = 0x4C42534E;
+    /** Version of the snapshot format written by saveSnapshot. */
+    private static final int SNAPSHOT_VERSION = 2;
+    /** Smallest share of the trigrams of a fuzzy search term a title must contain. */
+    private static final double MIN_FUZZY_MATCH = 0.5;
+    /** Number of bits of a fuzzy search rank holding the inverted id of an entry. */
+    private static final int RANK_ID_BITS = Integer.SIZE - 1;
+    /** Number of bits of a fuzzy search rank holding the similarity of a title. */
+    private static final int RANK_SIMILARITY_BITS = 20;
+    /** Largest number of shared trigrams distinguished by a fuzzy search rank. */
+    private static final int RANK_MAX_SHARED = (1 << (Long.SIZE - 1 - RANK_ID_BITS - RANK_SIMILARITY_BITS)) - 1;
+    /** Estimated number of bytes of query results kept by default. */
+    private static final long RESULT_CACHE_CAPACITY = 64L * 1024 * 1024;
 
-    /** Create a new and empty book library. */
+    /**
+     * Currently loaded book data, addressed by entry id. Ids follow the insertion
+     * order. Removed entries are only marked as removed to keep the ids of all other
+     * entries stable, until they outnumber the loaded entries and the data is
+     * compacted into a new store.
+     */
+    private BookStore books;
+    /**
+     * Index from the hash codes of the loaded book entries to their ids used for
+     * constant time duplicate checks and removals. It contains exactly the ids of
+     * the entries in books which have not been removed.
+     */
+    private final IdHashIndex bookIndex;
+    /** Inverted index over the titles of all entries in books, including removed ones. */
+    private final TitleIndex titleIndex;
+    /** Index from the distinct titles of all entries in books to their ids, including removed ones. */
+    private final IdGroupIndex titleIds;
+    /** Index from the authors of all entries in books to their ids, including removed ones. */
+    private final AuthorIndex authorIndex;
+    /** Ids of all entries in books sorted by title, including removed ones. */
+    private final SortedTitleIndex sortedTitles;
+    /** Completions of the titles of the loaded entries, null until titles are first suggested. */
+    private volatile PrefixIndex titlePrefixes;
+    /** Completions of the authors of the loaded entries, null until authors are first suggested. */
+    private volatile PrefixIndex authorPrefixes;
+    /** Lock held while building a prefix index, so concurrent queries build it only once. */
+    private final Object prefixBuildLock;
+    /** Number of removed entries in books. */
+    private int removedSlots;
+    /** Loaded book entries without removed ones, null if it has to be rebuilt. */
+    private volatile List<BookEntry> bookData;
+    /** Loaded book entries sorted by title, null if it has to be rebuilt. */
+    private volatile List<BookEntry> titleOrder;
+    /**
+     * Indexes of the entries in books per numeric field, null where one has to be built.
+     * They may miss the entries added since they were built and still hold removed ones.
+     */
+    private volatile NumericIndex[] numericIndexes;
+    /** Ids of the loaded entries, null if they have to be rebuilt. */
+    private volatile IdBitmap liveIdSet;
+    /** Number of changes made to the loaded entries so far. */
+    private volatile long version;
+    /** Results of queries on the loaded entries, valid for the current version only. */
+    private final ResultCache resultCache;
+    /** Estimated heap bytes saved by sharing author names while loading files. */
+    private final AtomicLong sharedAuthorBytes;
+    /** Number of threads used for parsing book data files. */
+    private volatile int parseWorkers;
+    /** Log every added and removed entry is recorded in, null if changes are not logged. */
+    private WriteAheadLog writeAheadLog;
+    /**
+     * Lock guarding all fields above except the cached lists and indexes, version and
+     * parseWorkers. Queries hold the read lock, changes the write lock.
+     */
+    private final ReadWriteLock lock;
+
+    /** Create a new and empty book library keeping every book entry as an object. */
     public LibraryData() {
-        books = new ArrayList<>();
+        this(new ObjectBookStore());
+    }
+
+    /**
+     * Create a new and empty book library storing the book entries in the given store.
+     * 
+     * A ColumnarBookStore needs considerably less memory per entry than the default
+     * ObjectBookStore, at the cost of creating book entries whenever they are read.
+     * @param emptyStore store to be used for the book entries, must be empty
+     * @throws NullPointerException if the given store is null
+     * @throws IllegalArgumentException if the given store is not empty
+     */
+    public LibraryData(BookStore emptyStore) {
+        Objects.requireNonNull(emptyStore, "Given store must not be null.");
+        if (emptyStore.size() != 0) {
+            throw new IllegalArgumentException("Given store must be empty.");
+        }
+        books = emptyStore;
+        bookIndex = new IdHashIndex();
+        titleIndex = new TitleIndex();
+        titleIds = new IdGroupIndex();
+        authorIndex = new AuthorIndex();
+        sortedTitles = new SortedTitleIndex();
+        titlePrefixes = null;
+        authorPrefixes = null;
+        prefixBuildLock = new Object();
+        removedSlots = 0;
+        bookData = Collections.emptyList();
+        titleOrder = Collections.emptyList();
+        numericIndexes = new NumericIndex[NumericField.values().length];
+        version = 0;
+        resultCache = new ResultCache(RESULT_CACHE_CAPACITY);
+        sharedAuthorBytes = new AtomicLong();
+        parseWorkers = Runtime.getRuntime().availableProcessors();
+        lock = new ReentrantReadWriteLock();
     }
 
     /** 
-     * Get all available book entries.
+     * Get all available book entries in the order they were added.
+     * 
+     * The returned list can't be modified, use the removal methods
+     * of this class instead. It is not affected by later changes
+     * to the library data.
      * @return available book entries
      */
     public List<BookEntry> getBookData() {
-        return books;
+        List<BookEntry> cachedData = bookData;
+        if (cachedData != null) {
+            CommandMetrics.countScannedRows(cachedData.size());
+            return cachedData;
+        }
+        lock.readLock().lock();
+        try {
+            if (bookData == null) {
+                IntList liveIds = new IntList(books.size() - removedSlots);
+                for (int id = 0; id < books.size(); id++) {
+                    if (!books.isRemoved(id)) {
+                        liveIds.add(id);
+                    }
+                }
+                bookData = new BookListView(books.reader(), liveIds.toArray());
+            }
+            CommandMetrics.countScannedRows(bookData.size());
+            return bookData;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the version of the library data, which is increased by every change
+     * to the loaded entries, such as merging a batch of entries or a removal.
+     * Two queries seeing the same version see the same entries.
+     * @return current version, starting with 0 for new library data
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the cache for the output of queries on this library data. Results are
+     * to be stored with the version they were computed for, so they are not used
+     * anymore once the library data changes.
+     * @return the result cache of this library data
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Get the estimated number of heap bytes saved by sharing author names and
+     * author arrays between the book entries of every file loaded so far.
+     * @return estimated bytes saved
+     */
+    public long getSharedAuthorBytes() {
+        return sharedAuthorBytes.get();
+    }
+
+    /**
+     * Get the number of available book entries without visiting them.
+     * @return number of loaded entries
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bookIndex.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get all available book entries sorted by title, ignoring case. Titles starting
+     * with a digit come after all other titles, entries with the same title are kept
+     * in the order they were added.
+     * 
+     * The order is maintained by an index updated with every added entry, so no
+     * sorting happens here. Like getBookData, the returned list can't be modified
+     * and is not affected by later changes to the library data.
+     * @return available book entries in title order
+     */
+    public List<BookEntry> getBooksByTitle() {
+        List<BookEntry> cachedOrder = titleOrder;
+        if (cachedOrder != null) {
+            CommandMetrics.countScannedRows(cachedOrder.size());
+            return cachedOrder;
+        }
+        lock.readLock().lock();
+        try {
+            if (titleOrder == null) {
+                IntList liveIds = new IntList(books.size() - removedSlots);
+                sortedTitles.forEach(id -> {
+                    if (!books.isRemoved(id)) {
+                        liveIds.add(id);
+                    }
+                });
+                titleOrder = new BookListView(books.reader(), liveIds.toArray());
+            }
+            CommandMetrics.countScannedRows(titleOrder.size());
+            return titleOrder;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get all book entries with a value of the given field within the given bounds.
+     * @param field field to be compared
+     * @param min smallest value to be included
+     * @param max largest value to be included
+     * @return matching book entries in ascending order of the field, entries with the
+     * same value in the order they were added
+     * @throws NullPointerException if the given field is null
+     */
+    public List<BookEntry> getBooksInRange(NumericField field, double min, double max) {
+        Objects.requireNonNull(field, "Given field must not be null.");
+        lock.readLock().lock();
+        try {
+            int[] ids = getNumericIndex(field).getRange(field.getLowerKey(min), field.getUpperKey(max), this::isLive);
+            CommandMetrics.countScannedRows(ids.length);
+            return new BookListView(books.reader(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the book entries with the highest values of the given field. Only the
+     * returned entries are visited, as long as the field index is up to date.
+     * @param field field to be ranked by
+     * @param count largest number of entries returned
+     * @return book entries in descending order of the field, entries with the
+     * same value in the order they were added
+     * @throws NullPointerException if the given field is null
+     */
+    public List<BookEntry> getTopBooks(NumericField field, int count) {
+        Objects.requireNonNull(field, "Given field must not be null.");
+        lock.readLock().lock();
+        try {
+            int[] ids = getNumericIndex(field).getHighest(count, this::isLive);
+            CommandMetrics.countScannedRows(ids.length);
+            return new BookListView(books.reader(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get all available book entries sorted by the given field.
+     * @param field field to be sorted by
+     * @param descending whether the highest values come first
+     * @return book entries sorted by the field, entries with the same
+     * value in the order they were added
+     * @throws NullPointerException if the given field is null
+     */
+    public List<BookEntry> getBooksSortedBy(NumericField field, boolean descending) {
+        Objects.requireNonNull(field, "Given field must not be null.");
+        lock.readLock().lock();
+        try {
+            int[] ids = getNumericIndex(field).getAll(descending, this::isLive);
+            CommandMetrics.countScannedRows(ids.length);
+            return new BookListView(books.reader(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the index of the entries for a numeric field, building it on its first use and
+     * merging the entries added since its last use into it. Removed entries may still be
+     * part of the index and have to be skipped. Must be called while holding the read lock.
+     * @param field indexed field
+     * @return index of all loaded entries
+     */
+    private NumericIndex getNumericIndex(NumericField field) {
+        NumericIndex[] indexes = numericIndexes;
+        NumericIndex index = indexes[field.ordinal()];
+        int from = index == null ? 0 : index.getIdLimit();
+        if (from < books.size()) {
+            IntList addedIds = new IntList(books.size() - from);
+            for (int id = from; id < books.size(); id++) {
+                if (!books.isRemoved(id)) {
+                    addedIds.add(id);
+                }
+            }
+            CommandMetrics.countScannedRows(addedIds.size());
+            IntUnaryOperator keyOf = id -> field.getKey(books, id);
+            index = index == null ? new NumericIndex(addedIds.toArray(), keyOf, books.size())
+                    : index.withAdded(addedIds.toArray(), keyOf, books.size(), this::isLive);
+            /* Publish a new array through the volatile field, so other queries find the index. */
+            indexes = indexes.clone();
+            indexes[field.ordinal()] = index;
+            numericIndexes = indexes;
+        }
+        return index;
+    }
+
+    /**
+     * Get all book entries whose title contains the given term, ignoring case.
+     * 
+     * Terms of at least TitleIndex.GRAM_LENGTH characters are looked up in
+     * the title index, shorter terms are checked against every title.
+     * @param term term to be searched for
+     * @return matching book entries in the order they were added
+     * @throws NullPointerException if the given term is null
+     */
+    public List<BookEntry> searchTitles(String term) {
+        Objects.requireNonNull(term, "Given search term must not be null.");
+        String lowerCaseTerm = term.toLowerCase();
+
+        lock.readLock().lock();
+        try {
+            return new BookListView(books.reader(), findTitles(lowerCaseTerm).toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the ids of all loaded entries whose title contains the given term.
+     * Must be called while holding the read lock.
+     * @param lowerCaseTerm lowercased term to be searched for
+     * @return ids of the matching entries in ascending order
+     */
+    private IntList findTitles(String lowerCaseTerm) {
+        IntList hits = new IntList();
+        if (lowerCaseTerm.length() < TitleIndex.GRAM_LENGTH) {
+            CommandMetrics.countScannedRows(books.size());
+            for (int id = 0; id < books.size(); id++) {
+                if (!books.isRemoved(id) && books.getTitle(id).toLowerCase().contains(lowerCaseTerm)) {
+                    hits.add(id);
+                }
+            }
+        } else {
+            IntList candidates = titleIndex.getCandidates(lowerCaseTerm);
+            CommandMetrics.countScannedRows(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                int id = candidates.get(i);
+                if (!books.isRemoved(id) && books.getTitle(id).toLowerCase().contains(lowerCaseTerm)) {
+                    hits.add(id);
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Get all book entries matching the given query. The query is evaluated on sets of
+     * entry ids taken from the indexes, no entries are visited besides the returned ones
+     * and the titles checked for title terms.
+     * @param query query to be evaluated
+     * @return matching book entries in the order they were added
+     * @throws NullPointerException if the given query is null
+     */
+    public List<BookEntry> query(BookQuery query) {
+        Objects.requireNonNull(query, "Given query must not be null.");
+        lock.readLock().lock();
+        try {
+            /* Removed entries may be part of the sets of the index lookups, they are dropped at the end. */
+            int[] ids = query.evaluate(this).and(getLiveIds()).toArray();
+            return new BookListView(books.reader(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ids of all loaded entries, building them if the entries changed
+     * since they were last used. Must be called while holding the read lock.
+     * @return ids of all loaded entries
+     */
+    private IdBitmap getLiveIds() {
+        IdBitmap ids = liveIdSet;
+        if (ids == null) {
+            IntList live = new IntList(books.size() - removedSlots);
+            for (int id = 0; id < books.size(); id++) {
+                if (!books.isRemoved(id)) {
+                    live.add(id);
+                }
+            }
+            ids = IdBitmap.of(live);
+            liveIdSet = ids;
+        }
+        return ids;
+    }
+
+    /**
+     * Get the ids of all entries, which may include removed ones. Used by queries,
+     * so it must be called while holding the read lock.
+     * @return ids of all entries in the store
+     */
+    IdBitmap matchAll() {
+        return IdBitmap.range(books.size());
+    }
+
+    /**
+     * Get the ids of the entries whose title contains the given term, ignoring case.
+     * Used by queries, so it must be called while holding the read lock.
+     * @param term term to be searched for
+     * @return ids of the matching entries
+     */
+    IdBitmap matchTitle(String term) {
+        return IdBitmap.of(findTitles(term.toLowerCase()));
+    }
+
+    /**
+     * Get the ids of the entries with an author whose name contains the given term,
+     * ignoring case, which may include removed entries. Used by queries, so it must
+     * be called while holding the read lock.
+     * @param term term to be searched for in the author names
+     * @return ids of the matching entries
+     */
+    IdBitmap matchAuthor(String term) {
+        String lowerCaseTerm = term.toLowerCase();
+        IdBitmap ids = IdBitmap.empty();
+        for (String author : authorIndex.getAuthors()) {
+            if (author.toLowerCase().contains(lowerCaseTerm)) {
+                IntList authorIds = authorIndex.get(author);
+                CommandMetrics.countScannedRows(authorIds.size());
+                ids = ids.or(IdBitmap.of(authorIds));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Get the ids of the entries with a key of the given field within the given bounds.
+     * Used by queries, so it must be called while holding the read lock.
+     * @param field field to be compared
+     * @param minKey smallest key to be included, as given by NumericField.getLowerKey
+     * @param maxKey largest key to be included, as given by NumericField.getUpperKey
+     * @return ids of the matching entries
+     */
+    IdBitmap matchRange(NumericField field, long minKey, long maxKey) {
+        int[] ids = getNumericIndex(field).getRange(minKey, maxKey, this::isLive);
+        CommandMetrics.countScannedRows(ids.length);
+        return IdBitmap.ofUnsorted(ids);
+    }
+
+    /**
+     * Get the book entries whose titles are most similar to the given term, ignoring case,
+     * so misspelled titles are found as well.
+     * 
+     * Titles are ranked by the share of the distinct trigrams of the term they contain,
+     * and titles containing the same share by their trigram similarity to the term,
+     * the number of shared trigrams divided by the number of trigrams of both. Titles
+     * containing less than MIN_FUZZY_MATCH of the term's trigrams are left out. Only
+     * the postings of the term's trigrams are visited, titles are not compared one by one.
+     * @param term term to be searched for, terms shorter than TitleIndex.GRAM_LENGTH match nothing
+     * @param count largest number of entries returned
+     * @return most similar book entries, the best match first, equally similar
+     * entries in the order they were added
+     * @throws NullPointerException if the given term is null
+     * @throws IllegalArgumentException if the given count is negative
+     */
+    public List<BookEntry> searchTitlesFuzzy(String term, int count) {
+        Objects.requireNonNull(term, "Given search term must not be null.");
+        if (count < 0) {
+            throw new IllegalArgumentException("Given count must not be negative: " + count);
+        }
+        String lowerCaseTerm = term.toLowerCase();
+        int termGrams = TitleIndex.countGrams(lowerCaseTerm);
+        int minShared = Math.max(1, (int) Math.ceil(MIN_FUZZY_MATCH * termGrams));
+        /* Smallest rank of the best entries found so far first. */
+        PriorityQueue<Long> best = new PriorityQueue<>();
+
+        lock.readLock().lock();
+        try {
+            long[] candidates = {0};
+            titleIndex.countSharedGrams(lowerCaseTerm, (id, shared) -> {
+                candidates[0]++;
+                if (shared < minShared || books.isRemoved(id)) {
+                    return;
+                }
+                double similarity = (double) shared / (termGrams + titleIndex.getGramCount(id) - shared);
+                long rank = getFuzzyRank(shared, similarity, id);
+                if (best.size() < count) {
+                    best.add(rank);
+                } else if (count > 0 && rank > best.peek()) {
+                    best.poll();
+                    best.add(rank);
+                }
+            });
+            CommandMetrics.countScannedRows(candidates[0]);
+
+            int[] ids = new int[best.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = Integer.MAX_VALUE - (int) (best.poll() & Integer.MAX_VALUE);
+            }
+            return new BookListView(books.reader(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pack the shared trigrams, the similarity and the inverted id of a fuzzy search
+     * match into a long, so better matches have higher ranks without creating objects.
+     * @param shared number of trigrams of the term contained in the title
+     * @param similarity trigram similarity of term and title between 0 and 1
+     * @param id id of the book entry
+     * @return rank of the match
+     */
+    private static long getFuzzyRank(int shared, double similarity, int id) {
+        long rank = Math.min(shared, RANK_MAX_SHARED);
+        rank = rank << RANK_SIMILARITY_BITS | (long) (similarity * ((1 << RANK_SIMILARITY_BITS) - 1));
+        return rank << RANK_ID_BITS | Integer.MAX_VALUE - id;
+    }
+
+    /**
+     * Get the titles of the available book entries starting with the given prefix,
+     * ignoring case. Titles are ranked by the highest rating of the entries holding
+     * them, and only the titles ranked for the prefix are visited.
+     * @param prefix prefix of the titles
+     * @return at most PrefixIndex.SUGGESTION_COUNT titles, the best ranked first
+     * @throws NullPointerException if the given prefix is null
+     */
+    public List<String> suggestTitles(String prefix) {
+        return suggest(false, prefix);
+    }
+
+    /**
+     * Get the authors of the available book entries whose names start with the given
+     * prefix, ignoring case. Authors are ranked by the highest rating of their books.
+     * @param prefix prefix of the author names
+     * @return at most PrefixIndex.SUGGESTION_COUNT authors, the best ranked first
+     * @throws NullPointerException if the given prefix is null
+     */
+    public List<String> suggestAuthors(String prefix) {
+        return suggest(true, prefix);
+    }
+
+    private List<String> suggest(boolean authors, String prefix) {
+        Objects.requireNonNull(prefix, "Given prefix must not be null.");
+        lock.readLock().lock();
+        try {
+            List<String> suggestions = getPrefixes(authors).complete(prefix);
+            CommandMetrics.countScannedRows(suggestions.size());
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the completions of the titles or authors of the loaded entries, building them
+     * on their first use, so loading and changing libraries which are never asked for
+     * suggestions doesn't pay for them. Once built, every change keeps them up to date.
+     * Must be called while holding the read lock.
+     * @param authors true for the completions of authors, false for those of titles
+     * @return prefix index of the loaded entries
+     */
+    private PrefixIndex getPrefixes(boolean authors) {
+        PrefixIndex prefixes = authors ? authorPrefixes : titlePrefixes;
+        if (prefixes != null) {
+            return prefixes;
+        }
+        synchronized (prefixBuildLock) {
+            prefixes = authors ? authorPrefixes : titlePrefixes;
+            if (prefixes == null) {
+                prefixes = new PrefixIndex();
+                int scanned = 0;
+                for (int id = 0; id < books.size(); id++) {
+                    if (books.isRemoved(id)) {
+                        continue;
+                    }
+                    if (authors) {
+                        for (String author : books.get(id).getAuthors()) {
+                            prefixes.add(author, books.getRating(id));
+                        }
+                    } else {
+                        prefixes.add(books.getTitle(id), books.getRating(id));
+                    }
+                    scanned++;
+                }
+                CommandMetrics.countScannedRows(scanned);
+                /* Publish the index through the volatile field only once it is complete. */
+                if (authors) {
+                    authorPrefixes = prefixes;
+                } else {
+                    titlePrefixes = prefixes;
+                }
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Get all authors of the available book entries.
+     * @return authors in lexicographical order
+     */
+    public List<String> getAuthors() {
+        return getAuthors(null, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get a page of the authors of the available book entries, walking the sorted
+     * author index from the given author on. Only the skipped and returned authors
+     * are visited, so all authors can be read page by page, with changes in between
+     * being visible on later pages.
+     * @param after author the page starts after, null to start with the first author
+     * @param skip number of authors following the given one to be left out
+     * @param count largest number of authors returned
+     * @return authors in lexicographical order
+     * @throws IllegalArgumentException if the given skip or count is negative
+     */
+    public List<String> getAuthors(String after, int skip, int count) {
+        if (skip < 0 || count < 0) {
+            throw new IllegalArgumentException("Given skip and count must not be negative: " + skip + ", " + count);
+        }
+        List<String> authors = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            NavigableSet<String> allAuthors = authorIndex.getAuthors();
+            int skipped = 0;
+            for (String author : after == null ? allAuthors : allAuthors.tailSet(after, false)) {
+                if (authors.size() == count) {
+                    break;
+                }
+                if (containsLiveEntry(authorIndex.get(author))) {
+                    if (skipped < skip) {
+                        skipped++;
+                    } else {
+                        authors.add(author);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return authors;
+    }
+
+    /**
+     * Get all book entries written by the given author.
+     * @param author name of the author
+     * @return book entries of the author in the order they were added
+     * @throws NullPointerException if the given author is null
+     */
+    public List<BookEntry> getBooksByAuthor(String author) {
+        Objects.requireNonNull(author, "Given author must not be null.");
+        lock.readLock().lock();
+        try {
+            IntList ids = authorIndex.get(author);
+            CommandMetrics.countScannedRows(ids.size());
+            IntList liveIds = new IntList(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                if (!books.isRemoved(ids.get(i))) {
+                    liveIds.add(ids.get(i));
+                }
+            }
+            return new BookListView(books.reader(), liveIds.toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether any of the given ids belongs to an entry which has not been removed.
+     * @param ids ids to be checked
+     * @return true if at least one id refers to a loaded entry
+     */
+    private boolean containsLiveEntry(IntList ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            if (!books.isRemoved(ids.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Set the number of threads used for parsing book data files.
+     * By default, one thread per available processor is used.
+     * @param parseWorkers number of parse threads, 1 parses on the calling thread
+     * @throws IllegalArgumentException if the given number of workers is not positive
+     */
+    public void setParseWorkers(int parseWorkers) {
+        if (parseWorkers <= 0) {
+            throw new IllegalArgumentException("Given number of parse workers must be positive: " + parseWorkers);
+        }
+        this.parseWorkers = parseWorkers;
+    }
+
+    /**
+     * Write the library data including all indexes to a binary snapshot file,
+     * which can be read back much faster than the original book data files.
+     * 
+     * The snapshot starts with a magic number and the format version and ends with
+     * a CRC32 checksum of everything before. In between, all author names are stored
+     * once in a dictionary, followed by the book entries with their authors given as
+     * dictionary codes and finally the indexes. The file is written next to the given
+     * path first and then moved in place, so an existing snapshot is only replaced by
+     * a complete one. A write-ahead log opened with openLog is emptied afterwards.
+     * Queries can run while the snapshot is written, changes and other snapshots have to wait.
+     * 
+     * @param snapshotFile path of the snapshot file
+     * @return true if the snapshot has been written successfully, false otherwise
+     * @throws NullPointerException if the given path is null
+     */
+    public boolean saveSnapshot(Path snapshotFile) {
+        OutputSink errorConsole = BufferedOutputSink.toErrorConsole();
+        boolean success = saveSnapshot(snapshotFile, errorConsole);
+        errorConsole.flush();
+        return success;
+    }
+
+    /**
+     * Write the library data to a binary snapshot file, reporting any failure to the given sink.
+     * @param snapshotFile path of the snapshot file
+     * @param out sink failures are written to
+     * @return true if the snapshot has been written successfully, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @see #saveSnapshot(Path)
+     */
+    public synchronized boolean saveSnapshot(Path snapshotFile, OutputSink out) {
+        Objects.requireNonNull(snapshotFile, "Given snapshot file must not be null.");
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+        lock.writeLock().lock();
+        try {
+            if (removedSlots > 0) {
+                /* Removed entries are not written, so the ids have to be dense. */
+                compact();
+            }
+            /* Downgrade to the read lock, so queries can continue while writing. */
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            return writeSnapshot(snapshotFile, out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the snapshot file while holding the read lock, with all ids being dense.
+     * @param snapshotFile path of the snapshot file
+     * @param out sink failures are written to
+     * @return true if the snapshot has been written successfully, false otherwise
+     */
+    private boolean writeSnapshot(Path snapshotFile, OutputSink out) {
+        Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        boolean success = false;
+
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile())) {
+                BufferedOutputStream bufferedOut = new BufferedOutputStream(fileOut);
+                CRC32 checksum = new CRC32();
+                DataOutputStream checkedOut = new DataOutputStream(new CheckedOutputStream(bufferedOut, checksum));
+                writeSnapshotContent(checkedOut);
+                checkedOut.flush();
+                new DataOutputStream(bufferedOut).writeLong(checksum.getValue());
+                bufferedOut.flush();
+                fileOut.getFD().sync();
+            }
+            /* The temporary file is complete and closed, so it replaces the snapshot at once. */
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            success = true;
+        } catch (IOException | SecurityException e) {
+            out.println("ERROR: Writing snapshot failed: " + e);
+        }
+
+        if (success && writeAheadLog != null) {
+            /* All logged changes are part of the snapshot now. */
+            try {
+                writeAheadLog.reset();
+            } catch (IOException e) {
+                out.println("ERROR: Resetting write-ahead log failed: " + e);
+            }
+        }
+
+        return success;
+    }
+
+    /**
+     * Read library data from a snapshot file written by saveSnapshot. The file is
+     * memory mapped and its checksum and format version are verified before reading.
+     * Snapshots of at most 2 GB are supported.
+     * 
+     * @param snapshotFile path of the snapshot file
+     * @param emptyStore store to be used for the book entries, must be empty
+     * @return library data read from the snapshot or null if the snapshot could not be read
+     * @throws NullPointerException if one of the given parameters is null
+     * @throws IllegalArgumentException if the given store is not empty
+     */
+    public static LibraryData loadSnapshot(Path snapshotFile, BookStore emptyStore) {
+        OutputSink errorConsole = BufferedOutputSink.toErrorConsole();
+        LibraryData data = loadSnapshot(snapshotFile, emptyStore, errorConsole);
+        errorConsole.flush();
+        return data;
+    }
+
+    /**
+     * Read library data from a snapshot file, reporting any failure to the given sink.
+     * @param snapshotFile path of the snapshot file
+     * @param emptyStore store to be used for the book entries, must be empty
+     * @param out sink failures are written to
+     * @return library data read from the snapshot or null if the snapshot could not be read
+     * @throws NullPointerException if one of the given parameters is null
+     * @throws IllegalArgumentException if the given store is not empty
+     * @see #loadSnapshot(Path, BookStore)
+     */
+    public static LibraryData loadSnapshot(Path snapshotFile, BookStore emptyStore, OutputSink out) {
+        Objects.requireNonNull(snapshotFile, "Given snapshot file must not be null.");
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+        LibraryData data = new LibraryData(emptyStore);
+
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE || fileSize < 2 * Integer.BYTES + Long.BYTES) {
+                throw new IOException("Unsupported snapshot size: " + fileSize + " bytes");
+            }
+            MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            ByteBuffer content = snapshot.slice(0, (int) fileSize - Long.BYTES);
+
+            CRC32 checksum = new CRC32();
+            checksum.update(content.duplicate());
+            if (checksum.getValue() != snapshot.getLong((int) fileSize - Long.BYTES)) {
+                throw new IOException("Snapshot checksum does not match.");
+            }
+            if (content.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("File is not a library snapshot.");
+            }
+            int version = content.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            data.readSnapshotContent(content);
+        } catch (IOException | SecurityException | IllegalArgumentException | IndexOutOfBoundsException
+                | BufferUnderflowException e) {
+            out.println("ERROR: Reading snapshot failed: " + e);
+            return null;
+        }
+
+        return data;
+    }
+
+    /**
+     * Apply the changes recorded in the given write-ahead log to this library data
+     * and record all further changes in it. This is meant to be called right after
+     * the library data has been read from the latest snapshot, if any.
+     * 
+     * @param logFile path of the log file, which is created if it doesn't exist
+     * @return true if the log has been replayed and opened successfully, false otherwise
+     * @throws NullPointerException if the given path is null
+     * @throws IllegalStateException if a log has already been opened
+     */
+    public boolean openLog(Path logFile) {
+        OutputSink errorConsole = BufferedOutputSink.toErrorConsole();
+        boolean success = openLog(logFile, errorConsole);
+        errorConsole.flush();
+        return success;
+    }
+
+    /**
+     * Replay and open the given write-ahead log, reporting any failure or
+     * discarded incomplete record to the given sink.
+     * @param logFile path of the log file, which is created if it doesn't exist
+     * @param out sink failures and warnings are written to
+     * @return true if the log has been replayed and opened successfully, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @throws IllegalStateException if a log has already been opened
+     * @see #openLog(Path)
+     */
+    public boolean openLog(Path logFile, OutputSink out) {
+        Objects.requireNonNull(logFile, "Given log file must not be null.");
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+        lock.writeLock().lock();
+        try {
+            return replayLog(logFile, out);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replay and open the write-ahead log while holding the write lock.
+     * @param logFile path of the log file
+     * @param out sink failures and warnings are written to
+     * @return true if the log has been replayed and opened successfully, false otherwise
+     */
+    private boolean replayLog(Path logFile, OutputSink out) {
+        if (writeAheadLog != null) {
+            throw new IllegalStateException("A write-ahead log has already been opened.");
+        }
+        MutationLog replayTarget = new MutationLog() {
+            @Override
+            public void added(BookEntry entry) {
+                addEntry(entry);
+            }
+
+            @Override
+            public void removed(BookEntry entry) {
+                removeStoredEntry(entry);
+            }
+        };
+
+        try {
+            writeAheadLog = WriteAheadLog.open(logFile, replayTarget, out);
+        } catch (IOException | SecurityException e) {
+            out.println("ERROR: Opening write-ahead log failed: " + e);
+            return false;
+        } finally {
+            dataChanged();
+        }
+        return true;
+    }
+
+    /**
+     * Rewrite the write-ahead log to hold one record per loaded entry, dropping the
+     * records of removed entries and superseded changes. This keeps the log from
+     * growing without limit when no snapshot is saved. Queries can run meanwhile,
+     * changes have to wait. Does nothing if no log has been opened.
+     * @param out sink failures are written to
+     * @return true if the log has been rewritten or no log has been opened, false otherwise
+     * @throws NullPointerException if the given sink is null
+     */
+    public boolean rewriteLog(OutputSink out) {
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+        lock.readLock().lock();
+        try {
+            if (writeAheadLog != null) {
+                writeAheadLog.rewrite(getBookData());
+            }
+            return true;
+        } catch (IOException | SecurityException e) {
+            out.println("ERROR: Rewriting write-ahead log failed: " + e);
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the size of the write-ahead log, which shrinks whenever a snapshot is saved or the log is rewritten.
+     * @return number of bytes in the log, 0 if no log has been opened
+     */
+    public long getLogSize() {
+        lock.readLock().lock();
+        try {
+            return writeAheadLog == null ? 0 : writeAheadLog.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Wait until all logged changes are on disk and close the write-ahead log.
+     * Further changes are not logged anymore. Does nothing if no log has been opened.
+     */
+    public void closeLog() {
+        OutputSink errorConsole = BufferedOutputSink.toErrorConsole();
+        closeLog(errorConsole);
+        errorConsole.flush();
+    }
+
+    /**
+     * Wait until all logged changes are on disk and close the write-ahead log,
+     * reporting any failure to the given sink.
+     * @param out sink failures are written to
+     * @throws NullPointerException if the given sink is null
+     * @see #closeLog()
+     */
+    public void closeLog(OutputSink out) {
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+        lock.writeLock().lock();
+        try {
+            if (writeAheadLog == null) {
+                return;
+            }
+            writeAheadLog.close();
+        } catch (IOException e) {
+            out.println("ERROR: Closing write-ahead log failed: " + e);
+        } finally {
+            writeAheadLog = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the snapshot content following magic number and version.
+     * @param out sink to write to
+     * @throws IOException if writing fails
+     */
+    private void writeSnapshotContent(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+
+        Map<String, Integer> authorCodes = new HashMap<>();
+        out.writeInt(authorIndex.getAuthors().size());
+        for (String author : authorIndex.getAuthors()) {
+            authorCodes.put(author, authorCodes.size());
+            SnapshotIO.writeString(out, author);
+        }
+
+        out.writeInt(books.size());
+        for (int id = 0; id < books.size(); id++) {
+            BookEntry book = books.get(id);
+            SnapshotIO.writeString(out, book.getTitle());
+            SnapshotIO.writeString(out, book.getISBN());
+            out.writeFloat(book.getRating());
+            out.writeInt(book.getPages());
+            out.writeInt(book.getAuthors().length);
+            for (String author : book.getAuthors()) {
+                out.writeInt(authorCodes.get(author));
+            }
+        }
+
+        bookIndex.writeTo(out);
+        titleIndex.writeTo(out);
+        authorIndex.writeTo(out, authorCodes);
+    }
+
+    /**
+     * Read the snapshot content following magic number and version
+     * into this library data, which has to be empty.
+     * @param in buffer to read from
+     * @throws IOException if the buffer does not contain a complete snapshot
+     */
+    private void readSnapshotContent(ByteBuffer in) throws IOException {
+        int authorCount = SnapshotIO.readLength(in);
+        List<String> authorNames = new ArrayList<>(authorCount);
+        for (int i = 0; i < authorCount; i++) {
+            authorNames.add(SnapshotIO.readString(in));
+        }
+
+        int bookCount = SnapshotIO.readLength(in);
+        for (int id = 0; id < bookCount; id++) {
+            String title = SnapshotIO.readString(in);
+            String ISBN = SnapshotIO.readString(in);
+            float rating = in.getFloat();
+            int pages = in.getInt();
+            String[] authors = new String[SnapshotIO.readLength(in)];
+            for (int i = 0; i < authors.length; i++) {
+                authors[i] = authorNames.get(SnapshotIO.readLength(in));
+            }
+            BookEntry entry = new BookEntry(title, authors, rating, ISBN, pages);
+            books.add(entry);
+            /* Title ids, title order and built prefix indexes are not part of the snapshot, they are rebuilt while reading. */
+            addTitleId(id, title);
+            sortedTitles.add(id, title);
+            addPrefixes(entry);
+        }
+
+        bookIndex.readFrom(in);
+        titleIndex.readFrom(in);
+        authorIndex.readFrom(in, authorNames);
+        if (in.hasRemaining() || bookIndex.size() != bookCount) {
+            throw new IOException("Snapshot content is inconsistent.");
+        }
+        dataChanged();
     }
 
     /**
      * Initiate book data loading for the given path.
+     * 
+     * Files larger than STREAMING_THRESHOLD are streamed in batches, so the
+     * memory needed for loading them depends on the batch size only. Files
+     * larger than MAPPING_THRESHOLD are additionally read through a memory
+     * mapping, so their content is served from the page cache.
      * @param libraryFile specified path to book data file
      * @return true if loading was successful, false otherwise
      * @throws NullPointerException if the given path is null
      */
     public boolean loadData(Path libraryFile) {
+        OutputSink console = BufferedOutputSink.toConsole();
+        boolean success = loadData(libraryFile, console);
+        console.flush();
+        return success;
+    }
+
+    /**
+     * Initiate book data loading for the given path, reporting the
+     * added and duplicate entries as well as any failure to the given sink.
+     * @param libraryFile specified path to book data file
+     * @param out sink the loading results are written to
+     * @return true if loading was successful, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @see #loadData(Path)
+     */
+    public boolean loadData(Path libraryFile, OutputSink out) {
         Objects.requireNonNull(libraryFile, "Given file path must not be null.");
+        Objects.requireNonNull(out, "Given output sink must not be null.");
                
-        LibraryFileLoader loader = new LibraryFileLoader();
-        boolean success = loader.loadFileContent(libraryFile);
+        boolean success;
+        int added = 0;
+        long authorBytesSaved;
+
+        long fileSize = getFileSize(libraryFile);
+        int[] streamed = {0};
+
+        try (LibraryFileLoader loader = new LibraryFileLoader(parseWorkers, out)) {
+            /* Batches are sized by the loader, so every parse worker gets enough rows. */
+            if (fileSize > MAPPING_THRESHOLD) {
+                success = loader.mapFileContent(libraryFile, loader.getBatchSize(),
+                        batch -> streamed[0] += mergeEntries(batch, out));
+                added = streamed[0];
+            } else if (fileSize > STREAMING_THRESHOLD) {
+                success = loader.streamFileContent(libraryFile, loader.getBatchSize(),
+                        batch -> streamed[0] += mergeEntries(batch, out));
+                added = streamed[0];
+            } else {
+                success = loader.loadFileContent(libraryFile);
+                if (success) {
+                    added = mergeEntries(loader.parseFileContent(), out);
+                }
+            }
+            authorBytesSaved = loader.getAuthorBytesSaved();
+        }
 
         if (success) {
-            List<BookEntry> loaded = loader.parseFileContent();
-            int added = mergeEntries(loaded);
-            System.out.println(added + " new book entries added.");
+            out.println(added + " new book entries added.");
+            sharedAuthorBytes.addAndGet(authorBytesSaved);
         } else {
-            System.err.println("ERROR: Loading book data failed for file: " + libraryFile);
+            out.println("ERROR: Loading book data failed for file: " + libraryFile);
         }
 
         return success;
     }
 
+    /**
+     * Get the size of the given file to choose how it is loaded.
+     * @param libraryFile specified path to book data file
+     * @return size of the file in bytes. If the size can't be determined, 0 is
+     * returned and the regular loading reports the problem.
+     */
+    private long getFileSize(Path libraryFile) {
+        try {
+            return Files.size(libraryFile);
+        } catch (IOException | SecurityException e) {
+            return 0;
+        }
+    }
+
     /**
      * Merge the list of book entries with the
      * entries already loaded.
@@ -55,19 +1205,353 @@ public class LibraryData {
      * Duplicate entries will be discarded (This requires .equals to be
      * implemented for BookEntry).
      * 
+     * The write lock is taken for MERGE_BATCH_SIZE entries at a time,
+     * so queries are not blocked while a large list is merged. Returns
+     * once the added entries are on disk if a write-ahead log is open.
+     * 
      * @param loaded list of book entries to be merged with data already loaded
+     * @param out sink the duplicate entries are reported to
      * @return number of book entries added to the library
      */
-    private int mergeEntries(List<BookEntry> loaded) {
+    private int mergeEntries(List<BookEntry> loaded, OutputSink out) {
         int count = 0;
-        for (BookEntry entry : loaded) {
-            if (!books.contains(entry)) {
-                books.add(entry);
-                count++;
-            } else {
-                System.out.println("Duplicate entry found for book: " + entry);
+        long logPosition = -1;
+        for (int start = 0; start < loaded.size(); start += MERGE_BATCH_SIZE) {
+            List<BookEntry> batch = loaded.subList(start, Math.min(start + MERGE_BATCH_SIZE, loaded.size()));
+            List<BookEntry> duplicates = new ArrayList<>();
+            CommandMetrics.countScannedRows(batch.size());
+            lock.writeLock().lock();
+            try {
+                for (BookEntry entry : batch) {
+                    if (addEntry(entry)) {
+                        if (writeAheadLog != null) {
+                            writeAheadLog.added(entry);
+                        }
+                        count++;
+                    } else {
+                        duplicates.add(entry);
+                    }
+                }
+                dataChanged();
+                logPosition = getLogPosition();
+            } finally {
+                lock.writeLock().unlock();
             }
+            for (BookEntry entry : duplicates) {
+                out.println("Duplicate entry found for book: " + entry);
+            }
+        }
+        awaitLogged(logPosition);
+        return count;
+    }
+
+    /**
+     * Append the given entry to the book data and all indexes, unless it is a duplicate.
+     * @param entry book entry to be added
+     * @return true if the entry has been added
+     */
+    private boolean addEntry(BookEntry entry) {
+        int hash = entry.hashCode();
+        if (findEntry(entry, hash) != -1) {
+            return false;
+        }
+        int id = books.add(entry);
+        bookIndex.add(hash, id);
+        titleIndex.add(id, entry.getTitle());
+        addTitleId(id, entry.getTitle());
+        authorIndex.add(id, entry.getAuthors());
+        sortedTitles.add(id, entry.getTitle());
+        addPrefixes(entry);
+        return true;
+    }
+
+    /**
+     * Add the id of a stored entry to the group of its title.
+     * @param id id of the entry
+     * @param title title of the entry
+     */
+    private void addTitleId(int id, String title) {
+        titleIds.add(title.hashCode(), id, candidate -> books.getTitle(candidate).equals(title));
+    }
+
+    /**
+     * Add the title and authors of a loaded entry to the prefix indexes which have been built.
+     * @param entry the entry
+     */
+    private void addPrefixes(BookEntry entry) {
+        if (titlePrefixes != null) {
+            titlePrefixes.add(entry.getTitle(), entry.getRating());
+        }
+        if (authorPrefixes != null) {
+            for (String author : entry.getAuthors()) {
+                authorPrefixes.add(author, entry.getRating());
+            }
+        }
+    }
+
+    /**
+     * Remove the title and authors of a removed entry from the prefix indexes which have been built.
+     * @param entry the entry
+     */
+    private void removePrefixes(BookEntry entry) {
+        if (titlePrefixes != null) {
+            titlePrefixes.remove(entry.getTitle(), entry.getRating());
+        }
+        if (authorPrefixes != null) {
+            for (String author : entry.getAuthors()) {
+                authorPrefixes.remove(author, entry.getRating());
+            }
+        }
+    }
+
+    /**
+     * Advance the version and drop the cached lists of loaded entries after a
+     * change, so they are rebuilt on their next use. Must be called while
+     * holding the write lock.
+     */
+    private void dataChanged() {
+        version++;
+        bookData = null;
+        titleOrder = null;
+        liveIdSet = null;
+    }
+
+    /**
+     * Check whether an id belongs to a loaded entry and not to a removed one.
+     * @param id id of an entry in books
+     * @return true if the entry has not been removed
+     */
+    private boolean isLive(int id) {
+        return !books.isRemoved(id);
+    }
+
+    /**
+     * Find the id of a loaded entry equal to the given one.
+     * @param entry book entry to look for
+     * @param hash hash code of the book entry
+     * @return id of the equal entry or -1 if there is none
+     */
+    private int findEntry(BookEntry entry, int hash) {
+        return bookIndex.find(hash, id -> books.get(id).equals(entry));
+    }
+
+    /**
+     * Remove the given book entry from the library.
+     * @param entry book entry to be removed
+     * @return true if the entry was part of the library and has been removed
+     * @throws NullPointerException if the given entry is null
+     */
+    public boolean removeEntry(BookEntry entry) {
+        Objects.requireNonNull(entry, "Given entry must not be null.");
+        boolean removed;
+        long logPosition;
+        lock.writeLock().lock();
+        try {
+            removed = removeStoredEntry(entry);
+            logPosition = getLogPosition();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitLogged(logPosition);
+        return removed;
+    }
+
+    /**
+     * Remove the given book entry from the book data and all indexes and log the removal.
+     * Must be called while holding the write lock.
+     * @param entry book entry to be removed
+     * @return true if the entry was part of the library and has been removed
+     */
+    private boolean removeStoredEntry(BookEntry entry) {
+        int hash = entry.hashCode();
+        int id = findEntry(entry, hash);
+        if (id == -1) {
+            return false;
+        }
+        bookIndex.remove(hash, id);
+        removePrefixes(entry);
+        books.remove(id);
+        removedSlots++;
+        dataChanged();
+        if (writeAheadLog != null) {
+            writeAheadLog.removed(entry);
+        }
+        if (removedSlots >= MIN_COMPACTION_SLOTS && removedSlots > bookIndex.size()) {
+            compact();
         }
+        return true;
+    }
+
+    /**
+     * Get the position following the last record of the write-ahead log.
+     * Must be called while holding the write lock, right after logging changes.
+     * @return position to wait for with awaitLogged, -1 if no log has been opened
+     */
+    private long getLogPosition() {
+        return writeAheadLog == null ? -1 : writeAheadLog.position();
+    }
+
+    /**
+     * Wait until the changes logged before the given position are on disk. Must be
+     * called after releasing the write lock, so the disk is not waited for while
+     * blocking other threads, and writers waiting together share one commit.
+     * @param logPosition position returned by getLogPosition, -1 to not wait
+     * @throws UncheckedIOException if the changes could not be written to the log
+     */
+    private void awaitLogged(long logPosition) {
+        WriteAheadLog log;
+        lock.readLock().lock();
+        try {
+            log = writeAheadLog;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (log == null || logPosition == -1) {
+            return;
+        }
+        try {
+            log.awaitCommitted(logPosition);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing the change to the write-ahead log failed: " + e, e);
+        }
+    }
+
+    /**
+     * Remove the first book entry with the given title from the library.
+     * The entry is looked up by title, so no other entries are visited.
+     * @param title exact title of the book entry to be removed
+     * @return true if an entry with the given title has been removed
+     * @throws NullPointerException if the given title is null
+     */
+    public boolean removeTitle(String title) {
+        Objects.requireNonNull(title, "Given title must not be null.");
+        boolean removed;
+        long logPosition;
+        lock.writeLock().lock();
+        try {
+            int id = titleIds.findFirst(title.hashCode(), candidate -> books.getTitle(candidate).equals(title),
+                    candidate -> !books.isRemoved(candidate));
+            removed = id != -1 && removeStoredEntry(books.get(id));
+            logPosition = getLogPosition();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitLogged(logPosition);
+        return removed;
+    }
+
+    /**
+     * Move all loaded entries into a new store and rebuild the indexes for the new ids.
+     * Since this only happens once the removed entries outnumber the loaded ones, the
+     * cost is spread over at least as many removals as there are entries left.
+     * Must be called while holding the write lock.
+     */
+    private void compact() {
+        List<BookEntry> liveBooks = getBookData();
+        books = books.createEmpty();
+        bookIndex.clear();
+        titleIndex.clear();
+        titleIds.clear();
+        authorIndex.clear();
+        sortedTitles.clear();
+        /* The prefix indexes hold no ids, so they stay valid and are kept out of the refill. */
+        PrefixIndex keptTitlePrefixes = titlePrefixes;
+        PrefixIndex keptAuthorPrefixes = authorPrefixes;
+        titlePrefixes = null;
+        authorPrefixes = null;
+        /* The numeric indexes refer to the old ids and are built again on their next use. */
+        numericIndexes = new NumericIndex[NumericField.values().length];
+        removedSlots = 0;
+        for (BookEntry book : liveBooks) {
+            addEntry(book);
+        }
+        titlePrefixes = keptTitlePrefixes;
+        authorPrefixes = keptAuthorPrefixes;
+        dataChanged();
+    }
+
+    /**
+     * Remove all book entries matching the given condition from the library.
+     * The condition is tested without holding any lock.
+     * @param condition condition selecting the entries to be removed
+     * @return number of book entries removed from the library
+     * @throws NullPointerException if the given condition is null
+     */
+    public int removeEntries(Predicate<BookEntry> condition) {
+        Objects.requireNonNull(condition, "Given condition must not be null.");
+        List<BookEntry> matches = new ArrayList<>();
+        for (BookEntry entry : getBookData()) {
+            if (condition.test(entry)) {
+                matches.add(entry);
+            }
+        }
+
+        int count = 0;
+        long logPosition;
+        lock.writeLock().lock();
+        try {
+            for (BookEntry entry : matches) {
+                if (removeStoredEntry(entry)) {
+                    count++;
+                }
+            }
+            logPosition = getLogPosition();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitLogged(logPosition);
+        return count;
+    }
+
+    /**
+     * Remove all book entries written by the given author from the library.
+     * Only the entries of the author are visited.
+     * @param author name of the author
+     * @return number of book entries removed from the library
+     * @throws NullPointerException if the given author is null
+     */
+    public int removeAuthor(String author) {
+        Objects.requireNonNull(author, "Given author must not be null.");
+        int count = 0;
+        long logPosition;
+        lock.writeLock().lock();
+        try {
+            for (BookEntry entry : getBooksByAuthor(author)) {
+                if (removeStoredEntry(entry)) {
+                    count++;
+                }
+            }
+            authorIndex.remove(author);
+            logPosition = getLogPosition();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitLogged(logPosition);
         return count;
     }
+
+    /**
+     * Unmodifiable list of book entries given by their ids in a store.
+     * Since stores never change stored entries, the list stays valid when
+     * entries are added to or removed from the library later on.
+     */
+    private static class BookListView extends AbstractList<BookEntry> implements RandomAccess {
+        private final IntFunction<BookEntry> store;
+        private final int[] ids;
+
+        BookListView(IntFunction<BookEntry> store, int[] ids) {
+            this.store = store;
+            this.ids = ids;
+        }
+
+        @Override
+        public BookEntry get(int index) {
+            return store.apply(ids[index]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
 }
@@ -1,16 +1,35 @@
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /** 
  * Class responsible for loading
  * book data from file.
+ * 
+ * A loader parsing with more than one worker keeps a fork join pool for
+ * all files it reads, which is shut down when the loader is closed.
  */
-public class LibraryFileLoader {
+public class LibraryFileLoader implements AutoCloseable {
+
+    /** Minimum number of lines parsed by a single parse task. */
+    private static final int MIN_CHUNK_SIZE = 4096;
+    /** Number of chunks created per parse worker to balance uneven chunks. */
+    private static final int CHUNKS_PER_WORKER = 4;
+    /** Maximum number of bytes of a file mapped into memory at a time. */
+    private static final long MAP_WINDOW_SIZE = 256L * 1024 * 1024;
+    /** Initial size of the buffer a single row is copied to from a mapped file. */
+    private static final int INITIAL_ROW_BUFFER_SIZE = 512;
 
     /**
      * Contains all lines read from a book data file using
@@ -23,12 +42,66 @@ public class LibraryFileLoader {
      * end of each line.
      */
     private List<String> fileContent;
+    /** Number of threads used for parsing book data. */
+    private final int parseWorkers;
+    /** Dictionary sharing the authors of all book entries parsed by this loader. */
+    private final AuthorDictionary authorDictionary;
+    /** Pool parsing chunks of rows in parallel, null until first needed. */
+    private ForkJoinPool parsePool;
+    /** Sink failures to read book data are reported to. */
+    private final OutputSink errorOut;
 
-    /** Create a new loader. No file content has been loaded yet. */
+    /** Create a new loader parsing on a single thread. No file content has been loaded yet. */
     public LibraryFileLoader() { 
+        this(1);
+    }
+
+    /**
+     * Create a new loader parsing with the given number of threads.
+     * No file content has been loaded yet.
+     * 
+     * Book data is split into line aligned chunks which are parsed on a fork join
+     * pool. The parsed entries are always in file order, regardless of the number
+     * of workers.
+     * 
+     * @param parseWorkers number of threads used for parsing, 1 parses on the calling thread.
+     * @throws IllegalArgumentException if the given number of workers is not positive
+     */
+    public LibraryFileLoader(int parseWorkers) {
+        this(parseWorkers, BufferedOutputSink.toErrorConsole());
+    }
+
+    /**
+     * Create a new loader parsing with the given number of threads and reporting
+     * failures to the given sink, such as the sink of the client adding a file.
+     * No file content has been loaded yet.
+     * 
+     * @param parseWorkers number of threads used for parsing, 1 parses on the calling thread.
+     * @param errorOut sink failures to read book data are reported to
+     * @throws IllegalArgumentException if the given number of workers is not positive
+     * @throws NullPointerException if the given sink is null
+     */
+    public LibraryFileLoader(int parseWorkers, OutputSink errorOut) {
+        Objects.requireNonNull(errorOut, "Given error output sink must not be null.");
+        if (parseWorkers <= 0) {
+            throw new IllegalArgumentException("Given number of parse workers must be positive: " + parseWorkers);
+        }
+        this.parseWorkers = parseWorkers;
+        this.errorOut = errorOut;
+        authorDictionary = new AuthorDictionary();
         fileContent = null;
     }
 
+    /**
+     * Get the number of rows per batch which lets every parse worker parse
+     * CHUNKS_PER_WORKER chunks of MIN_CHUNK_SIZE rows, so streamed and mapped
+     * files are parsed with full parallelism.
+     * @return suggested batch size for streamFileContent and mapFileContent
+     */
+    public int getBatchSize() {
+        return parseWorkers * CHUNKS_PER_WORKER * MIN_CHUNK_SIZE;
+    }
+
     /**
      * Load all lines from the specified book data file and
      * save them for later parsing with the parseFileContent method.
@@ -48,12 +121,156 @@ public class LibraryFileLoader {
             fileContent = Files.readAllLines(fileName);
             success = true;
         } catch (IOException | SecurityException e) {
-            System.err.println("ERROR: Reading file content failed: " + e);
+            reportError("Reading file content failed: " + e);
+        }
+
+        return success;
+    }
+
+    /**
+     * Read the specified book data file line by line and hand the parsed
+     * book entries over to the given consumer in batches.
+     * 
+     * In contrast to loadFileContent, the file content is not kept in memory,
+     * so at most one batch of book entries is held at a time. The column header
+     * in the first line is skipped. Each batch handed over to the consumer is a
+     * new list which the consumer may keep.
+     * 
+     * @param fileName file path with book data
+     * @param batchSize maximum number of book entries per batch
+     * @param batchConsumer consumer receiving the parsed batches in file order
+     * @return true if book data could be read successfully, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @throws IllegalArgumentException if the given batch size is not positive
+     */
+    public boolean streamFileContent(Path fileName, int batchSize, Consumer<List<BookEntry>> batchConsumer) {
+        Objects.requireNonNull(fileName, "Given filename must not be null.");
+        Objects.requireNonNull(batchConsumer, "Given batch consumer must not be null.");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Given batch size must be positive: " + batchSize);
+        }
+        boolean success = false;
+
+        try (BufferedReader reader = Files.newBufferedReader(fileName)) {
+            /* The first line is a column header and not actual data. */
+            String line = reader.readLine();
+            List<String> batch = new ArrayList<>(batchSize);
+            long batchLine = 2;
+            while (line != null && (line = reader.readLine()) != null) {
+                batch.add(line);
+                if (batch.size() == batchSize) {
+                    batchConsumer.accept(parseLines(batch, 0, batch.size(), batchLine));
+                    batchLine += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(parseLines(batch, 0, batch.size(), batchLine));
+            }
+            success = true;
+        } catch (IOException | SecurityException e) {
+            reportError("Reading file content failed: " + e);
         }
 
         return success;
     }
 
+    /**
+     * Read the specified book data file through a memory mapping and hand the
+     * parsed book entries over to the given consumer in batches.
+     * 
+     * The file is mapped in windows of MAP_WINDOW_SIZE bytes and rows are parsed
+     * directly from the mapped UTF-8 bytes, without creating a string per line.
+     * The file content therefore stays in the page cache instead of the heap,
+     * apart from the current batch of book entries. Rows are split at '\n', a
+     * trailing '\r' is ignored. The column header in the first line is skipped.
+     * 
+     * Only the row boundaries are searched on the calling thread, the rows of
+     * a batch are parsed in parallel like the lines of streamed files. Batches
+     * end at window boundaries, so they may be smaller than the batch size.
+     * 
+     * @param fileName file path with book data
+     * @param batchSize maximum number of book entries per batch
+     * @param batchConsumer consumer receiving the parsed batches in file order
+     * @return true if book data could be read successfully, false otherwise
+     * @throws NullPointerException if one of the given parameters is null
+     * @throws IllegalArgumentException if the given batch size is not positive
+     */
+    public boolean mapFileContent(Path fileName, int batchSize, Consumer<List<BookEntry>> batchConsumer) {
+        Objects.requireNonNull(fileName, "Given filename must not be null.");
+        Objects.requireNonNull(batchConsumer, "Given batch consumer must not be null.");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Given batch size must be positive: " + batchSize);
+        }
+        boolean success = false;
+
+        try (FileChannel channel = FileChannel.open(fileName, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+            boolean headerSkipped = false;
+            int[] rowStarts = new int[batchSize];
+            int[] rowEnds = new int[batchSize];
+            long batchLine = 2;
+
+            while (position < fileSize) {
+                int windowSize = (int) Math.min(MAP_WINDOW_SIZE, fileSize - position);
+                boolean lastWindow = position + windowSize == fileSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+
+                int rowStart = 0;
+                int rowCount = 0;
+                for (int i = 0; i <= windowSize; i++) {
+                    boolean rowEnd = i < windowSize ? window.get(i) == '\n' : lastWindow && i > rowStart;
+                    if (!rowEnd) {
+                        continue;
+                    }
+                    int end = i > rowStart && window.get(i - 1) == '\r' ? i - 1 : i;
+                    int start = rowStart;
+                    rowStart = i + 1;
+
+                    if (!headerSkipped) {
+                        headerSkipped = true;
+                        continue;
+                    }
+                    rowStarts[rowCount] = start;
+                    rowEnds[rowCount++] = end;
+                    if (rowCount == batchSize) {
+                        batchConsumer.accept(parseMappedRows(window, rowStarts, rowEnds, rowCount, batchLine));
+                        batchLine += rowCount;
+                        rowCount = 0;
+                    }
+                }
+                if (rowCount > 0) {
+                    batchConsumer.accept(parseMappedRows(window, rowStarts, rowEnds, rowCount, batchLine));
+                    batchLine += rowCount;
+                }
+
+                if (lastWindow) {
+                    position = fileSize;
+                } else if (rowStart == 0) {
+                    throw new IOException("Book data row exceeds " + MAP_WINDOW_SIZE + " bytes at position " + position);
+                } else {
+                    /* Continue with the row cut off by the end of this window. */
+                    position += rowStart;
+                }
+            }
+            success = true;
+        } catch (IOException | SecurityException | UnsupportedOperationException e) {
+            reportError("Reading file content failed: " + e);
+        }
+
+        return success;
+    }
+
+    /**
+     * Get the estimated number of heap bytes saved so far by sharing author
+     * names and author arrays between the book entries parsed by this loader.
+     * @return estimated bytes saved
+     */
+    public long getAuthorBytesSaved() {
+        return authorDictionary.getBytesSaved();
+    }
+
     /**
      * Has file content been loaded already?
      * @return true if file content has been loaded already.
@@ -70,30 +287,175 @@ public class LibraryFileLoader {
      */
     public List<BookEntry> parseFileContent() {
         if (!contentLoaded()){
-            System.err.println("ERROR: No content loaded before parsing.");
+            reportError("No content loaded before parsing.");
             return Collections.emptyList();
         }
         else{
-            List<BookEntry> BookEntries = new ArrayList<>();
-            addBookEntries(BookEntries);
-            return BookEntries;
+            /* Parsing starts from index 1 because the first line is a column header and not actual data. */
+            return parseLines(fileContent, Math.min(1, fileContent.size()), fileContent.size(), 1);
         }
     }
 
     /**
-     * Iterate through the csv file and add the book data to the book entries.
-     * @param bookEntries a list of book entry that book data added to
+     * Report a failure to the error sink, flushing it so the message is
+     * not held back behind later output.
+     * @param message description of the failure
+     */
+    private void reportError(String message) {
+        errorOut.println("ERROR: " + message);
+        errorOut.flush();
+    }
+
+    /**
+     * Parse the given range of lines into book entries, in parallel if
+     * more than one parse worker is configured and the range is large enough.
+     * @param lines lines of book data
+     * @param from index of the first line to parse
+     * @param to index after the last line to parse
+     * @param firstLine line number of the line at index 0 in the book data file
+     * @return book entries in the order of the given lines, without invalid ones
      */
-    private void addBookEntries(List<BookEntry> bookEntries) {
-        /** The for-loop start from index of 1 because the first line is a column header and not actual data.*/
-        for (int i = 1 ; i< fileContent.size();i++){
-            String[] bookEntryData = fileContent.get(i).split(",");
-            String title = bookEntryData[0];
-            String[] authors = bookEntryData[1].split("-");
-            float rating = Float.parseFloat(bookEntryData[2]);
-            String ISBN = bookEntryData[3];
-            int pages = Integer.parseInt(bookEntryData[4]);
-            bookEntries.add(new BookEntry(title,authors,rating,ISBN,pages));
+    private List<BookEntry> parseLines(List<String> lines, int from, int to, long firstLine) {
+        return parseRows(from, to, firstLine, (first, end, result, errors, resultOffset) -> {
+            for (int i = first; i < end; i++) {
+                try {
+                    result[i - resultOffset] = BookRowParser.parse(lines.get(i), authorDictionary);
+                } catch (IllegalArgumentException e) {
+                    errors[i - resultOffset] = e.getMessage();
+                }
+            }
+        });
+    }
+
+    /**
+     * Parse the given rows of a mapped window into book entries, in parallel if
+     * more than one parse worker is configured and there are enough rows.
+     * @param window mapped part of a book data file
+     * @param rowStarts offsets of the first byte of every row in the window
+     * @param rowEnds offsets after the last byte of every row in the window
+     * @param rowCount number of rows to parse
+     * @param firstLine line number of the first row in the book data file
+     * @return book entries in the order of the given rows, without invalid ones
+     */
+    private List<BookEntry> parseMappedRows(MappedByteBuffer window, int[] rowStarts, int[] rowEnds, int rowCount,
+            long firstLine) {
+        return parseRows(0, rowCount, firstLine, (first, end, result, errors, resultOffset) -> {
+            /* Absolute reads leave the window unchanged, so every chunk copies its rows on its own. */
+            byte[] row = new byte[INITIAL_ROW_BUFFER_SIZE];
+            for (int i = first; i < end; i++) {
+                int rowLength = rowEnds[i] - rowStarts[i];
+                if (rowLength > row.length) {
+                    row = new byte[Math.max(rowLength, row.length * 2)];
+                }
+                window.get(rowStarts[i], row, 0, rowLength);
+                try {
+                    result[i - resultOffset] = BookRowParser.parse(row, 0, rowLength, authorDictionary);
+                } catch (IllegalArgumentException e) {
+                    errors[i - resultOffset] = e.getMessage();
+                }
+            }
+        });
+    }
+
+    /**
+     * Parse the given range of rows with the given parser, splitting it into
+     * chunks parsed on the fork join pool of this loader if more than one parse
+     * worker is configured and the range is large enough.
+     *
+     * Invalid rows are skipped. They are reported to the error sink with their line
+     * number once all rows have been parsed, so the sink is only used by the calling thread.
+     * @param from index of the first row to parse
+     * @param to index after the last row to parse
+     * @param firstLine line number of the row at index 0 in the book data file
+     * @param parser parser of a chunk of rows
+     * @return book entries in the order of the rows, without invalid ones
+     */
+    private List<BookEntry> parseRows(int from, int to, long firstLine, ChunkParser parser) {
+        BookEntry[] parsed = new BookEntry[to - from];
+        String[] errors = new String[parsed.length];
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, parsed.length / (parseWorkers * CHUNKS_PER_WORKER));
+        if (parseWorkers == 1 || parsed.length <= chunkSize) {
+            parser.parse(from, to, parsed, errors, from);
+        } else {
+            if (parsePool == null) {
+                parsePool = new ForkJoinPool(parseWorkers);
+            }
+            parsePool.invoke(new ParseTask(parser, from, to, parsed, errors, from, chunkSize));
+        }
+
+        List<BookEntry> entries = new ArrayList<>(parsed.length);
+        for (int i = 0; i < parsed.length; i++) {
+            if (errors[i] != null) {
+                reportError("Skipping invalid book data row at line " + (firstLine + from + i) + ": " + errors[i]);
+            } else {
+                entries.add(parsed[i]);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Shut down the parse pool of this loader, if it has been started.
+     * The loader parses on the calling thread afterwards.
+     */
+    @Override
+    public void close() {
+        if (parsePool != null) {
+            parsePool.shutdown();
+            parsePool = null;
+        }
+    }
+
+    /** Parser of a chunk of rows into the corresponding slots of a result array. */
+    @FunctionalInterface
+    private interface ChunkParser {
+        /**
+         * Parse the rows from index from to index to.
+         * @param from index of the first row
+         * @param to index after the last row
+         * @param result array receiving the book entry of row i at index i - resultOffset
+         * @param errors array receiving the reason why row i is invalid at index i - resultOffset
+         * @param resultOffset index of the row stored at index 0 of the result
+         */
+        void parse(int from, int to, BookEntry[] result, String[] errors, int resultOffset);
+    }
+
+    /**
+     * Fork join task parsing a range of rows into the corresponding
+     * slots of a result array. Ranges larger than the chunk size are split
+     * in half, so every task writes a disjoint part of the result.
+     */
+    private static class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkParser parser;
+        private final int from;
+        private final int to;
+        private final BookEntry[] result;
+        private final String[] errors;
+        private final int resultOffset;
+        private final int chunkSize;
+
+        ParseTask(ChunkParser parser, int from, int to, BookEntry[] result, String[] errors, int resultOffset,
+                int chunkSize) {
+            this.parser = parser;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+            this.errors = errors;
+            this.resultOffset = resultOffset;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                parser.parse(from, to, result, errors, resultOffset);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(parser, from, middle, result, errors, resultOffset, chunkSize),
+                        new ParseTask(parser, middle, to, result, errors, resultOffset, chunkSize));
+            }
         }
     }
 }
@@ -0,0 +1,163 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server making the library browser commands available over TCP.
+ *
+ * Clients send the same command lines as typed into the library browser and
+ * receive the command output on the same connection. Every connection is handled
+ * on its own thread against the shared library data, so queries of different
+ * clients run in parallel. EXIT closes the connection of the client only.
+ *
+ * Virtual threads are used if the Java runtime offers them, otherwise a cached
+ * pool of platform threads.
+ */
+public class LibraryServer {
+
+    /** Size in bytes of the write-ahead log from which on it is compacted after a command. */
+    private static final long LOG_COMPACTION_SIZE = 64L * 1024 * 1024;
+    /** Maximum number of connections waiting to be accepted, so bursts of clients are not refused. */
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    /** Book data shared by all clients. */
+    private final LibraryData data;
+    /** Port the server listens on. */
+    private final int port;
+    /** File the book data is saved to on shutdown, null if it is not to be saved. */
+    private final Path snapshotFile;
+    /** Runs one task per client connection. */
+    private final ExecutorService connectionExecutor;
+    /** Interpreter shared by all connections, so they share its parsed commands. */
+    private final CommandInterpreter cmdIntrp;
+    /** Size of the write-ahead log after it was last rewritten, guarded by this server. */
+    private long rewrittenLogSize;
+
+    /**
+     * Create a server for the given library data, which is saved as snapshot
+     * to the given file when the server is shut down.
+     * @param data book data to be served
+     * @param port TCP port to listen on, 0 to use any free port
+     * @param snapshotFile snapshot file to be written on shutdown, or null to not save the data
+     * @throws NullPointerException if the given data is null
+     * @throws IllegalArgumentException if the given port is not a valid port number
+     */
+    public LibraryServer(LibraryData data, int port, Path snapshotFile) {
+        this.data = Objects.requireNonNull(data, "Given data must not be null.");
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Given port is out of range: " + port);
+        }
+        this.port = port;
+        this.snapshotFile = snapshotFile;
+        connectionExecutor = createConnectionExecutor();
+        cmdIntrp = new CommandInterpreter();
+    }
+
+    /**
+     * Accept and serve client connections until the program is terminated.
+     * The book data is saved to the snapshot file on termination.
+     */
+    public void run() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+        try (ServerSocket serverSocket = new ServerSocket(port, ACCEPT_BACKLOG)) {
+            System.out.println("Library server listening on port " + serverSocket.getLocalPort() + ".");
+            while (true) {
+                Socket socket = serverSocket.accept();
+                connectionExecutor.execute(() -> serve(socket));
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR: Library server failed: " + e);
+        } finally {
+            connectionExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Read and execute commands from the given client until it disconnects or exits.
+     * @param socket connection to the client
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            BufferedOutputSink out = new BufferedOutputSink(socket.getOutputStream(), StandardCharsets.UTF_8);
+            out.println("\nEnter a library command or type " + CommandType.HELP + " for command overview.");
+
+            while (true) {
+                out.print("> ");
+                if (out.checkError()) {
+                    break;
+                }
+                String inputLine = in.readLine();
+                if (inputLine == null) {
+                    break;
+                }
+
+                LibraryCommand command = cmdIntrp.parseCommand(inputLine, out);
+                if (command == null) {
+                    out.println("ERROR: Given command input is invalid: " + inputLine);
+                } else if (command instanceof ExitCmd) {
+                    break;
+                } else {
+                    try {
+                        cmdIntrp.executeCommand(command, data, out);
+                    } catch (RuntimeException e) {
+                        /* A failing command must not end the session of the client or bring down the server. */
+                        out.println("ERROR: " + e.getMessage());
+                    }
+                    compactLog(out);
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("ERROR: Client connection failed: " + e);
+        }
+    }
+
+    /**
+     * Compact the write-ahead log of the book data once it has grown large, which
+     * keeps replaying it on startup short. With a snapshot file, a snapshot is saved,
+     * which empties the log. Without one, the log is rewritten to hold the loaded
+     * entries only, once it has grown to twice its size after the last rewrite.
+     * @param out sink of the client whose command grew the log, receiving any failure
+     */
+    private synchronized void compactLog(OutputSink out) {
+        long logSize = data.getLogSize();
+        if (snapshotFile != null && logSize > LOG_COMPACTION_SIZE) {
+            data.saveSnapshot(snapshotFile, out);
+        } else if (snapshotFile == null && logSize > Math.max(LOG_COMPACTION_SIZE, 2 * rewrittenLogSize)) {
+            data.rewriteLog(out);
+            rewrittenLogSize = data.getLogSize();
+        }
+    }
+
+    /** Save the book data and close its write-ahead log when the program terminates. */
+    private void shutdown() {
+        if (snapshotFile != null && data.saveSnapshot(snapshotFile)) {
+            System.out.println("Library saved to snapshot: " + snapshotFile);
+        }
+        data.closeLog();
+    }
+
+    /**
+     * Create an executor starting a virtual thread per task if the Java runtime supports
+     * them, and reusing platform threads otherwise.
+     * @return executor for the client connections
+     */
+    private static ExecutorService createConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
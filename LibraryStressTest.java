@@ -0,0 +1,373 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent stress test of LibraryData, checking that readers never observe
+ * an inconsistent library while writers add and remove book entries.
+ *
+ * The generated book data is split into chunk files. Writer threads run ADD of
+ * random chunks, REMOVE TITLE and REMOVE AUTHOR through a shared CommandInterpreter.
+ * Reader threads run SEARCH, LIST and GROUP commands through the same interpreter
+ * and check the lists returned by LibraryData for invariants which hold for every
+ * state the library can be in:
+ * <ul>
+ * <li>lists contain no entry twice and only entries of the generated data</li>
+ * <li>search results contain the term, author lists the author</li>
+ * <li>title order, rating ranges and top ratings are ordered as documented</li>
+ * <li>the version of the library never decreases</li>
+ * </ul>
+ * Once the threads are stopped, all chunks are added again and the library has to
+ * hold exactly the generated entries. Any violation or exception is reported and
+ * makes the test exit with status 1.
+ */
+public final class LibraryStressTest {
+
+    /** Number of rows generated if none is given. */
+    private static final String DEFAULT_ROWS = "20k";
+    /** Number of seconds the readers and writers run if none is given. */
+    private static final int DEFAULT_SECONDS = 10;
+    /** Number of chunk files the generated data is split into. */
+    private static final int CHUNKS = 16;
+    /** Search terms of the readers, from many hits to none. */
+    private static final String[] SEARCH_TERMS = {"of", "love", "shadow", "empire", "12", "zebra"};
+    /** Number of entries asked for by TOP. */
+    private static final int TOP_COUNT = 20;
+    /** Largest number of violations printed. */
+    private static final int MAX_REPORTED = 20;
+
+    /** Entries of the generated book data. */
+    private final Set<BookEntry> universe;
+    /** Titles of the generated entries, in file order. */
+    private final List<String> titles;
+    /** Authors of the generated entries, in file order of their first entry. */
+    private final List<String> authors;
+    /** Chunk files of the generated book data. */
+    private final List<Path> chunkFiles;
+    /** Library under test. */
+    private final LibraryData data;
+    /** Interpreter shared by all threads, like the library server does. */
+    private final CommandInterpreter cmdIntrp;
+    /** Violations found so far. */
+    private final ConcurrentLinkedQueue<String> violations;
+    /** Whether the reader and writer threads have to stop. */
+    private final AtomicBoolean stopped;
+    /** Number of read operations run. */
+    private final AtomicLong reads;
+    /** Number of write operations run. */
+    private final AtomicLong writes;
+
+    private LibraryStressTest(List<BookEntry> entries, List<Path> chunkFiles, boolean columnar) {
+        universe = new HashSet<>(entries);
+        titles = new ArrayList<>();
+        Set<String> seenAuthors = new HashSet<>();
+        authors = new ArrayList<>();
+        for (BookEntry entry : entries) {
+            titles.add(entry.getTitle());
+            for (String author : entry.getAuthors()) {
+                if (seenAuthors.add(author)) {
+                    authors.add(author);
+                }
+            }
+        }
+        this.chunkFiles = chunkFiles;
+        data = columnar ? new LibraryData(new ColumnarBookStore()) : new LibraryData();
+        cmdIntrp = new CommandInterpreter();
+        violations = new ConcurrentLinkedQueue<>();
+        stopped = new AtomicBoolean();
+        reads = new AtomicLong();
+        writes = new AtomicLong();
+    }
+
+    /**
+     * Run the stress test.
+     * @param args number of rows to generate (such as 20k or 1M) followed by the
+     *             options --columnar, --readers n, --writers n and --seconds n
+     */
+    public static void main(String[] args) {
+        String rows = DEFAULT_ROWS;
+        boolean columnar = false;
+        int readers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int writers = 2;
+        int seconds = DEFAULT_SECONDS;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--columnar")) {
+                    columnar = true;
+                } else if (args[i].equals("--readers") && i + 1 < args.length) {
+                    readers = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--writers") && i + 1 < args.length) {
+                    writers = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--seconds") && i + 1 < args.length) {
+                    seconds = Integer.parseInt(args[++i]);
+                } else if (!args[i].startsWith("--")) {
+                    rows = args[i];
+                } else {
+                    System.err.println("ERROR: Unknown stress test argument: " + args[i]);
+                    System.exit(2);
+                }
+            }
+            if (readers <= 0 || writers <= 0 || seconds <= 0) {
+                System.err.println("ERROR: Readers, writers and seconds must be positive.");
+                System.exit(2);
+            }
+
+            Path dataFile = Files.createTempFile("library-stress", ".csv");
+            List<Path> chunkFiles = new ArrayList<>();
+            boolean passed;
+            try {
+                BookDataGenerator.generate(dataFile, BookDataGenerator.parseRows(rows), 0);
+                List<BookEntry> entries;
+                try (LibraryFileLoader loader = new LibraryFileLoader()) {
+                    if (!loader.loadFileContent(dataFile)) {
+                        throw new IOException("Generated book data could not be read: " + dataFile);
+                    }
+                    entries = loader.parseFileContent();
+                }
+                writeChunks(dataFile, chunkFiles);
+                passed = new LibraryStressTest(entries, chunkFiles, columnar).run(readers, writers, seconds);
+            } finally {
+                Files.deleteIfExists(dataFile);
+                for (Path chunkFile : chunkFiles) {
+                    Files.deleteIfExists(chunkFile);
+                }
+            }
+            System.exit(passed ? 0 : 1);
+        } catch (NumberFormatException e) {
+            System.err.println("ERROR: Invalid number: " + e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("ERROR: Preparing stress test data failed: " + e);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Split a book data file into CHUNKS files of consecutive rows, each with the column header.
+     * @param dataFile book data file to be split
+     * @param chunkFiles list the created files are added to
+     * @throws IOException if reading or writing fails
+     */
+    private static void writeChunks(Path dataFile, List<Path> chunkFiles) throws IOException {
+        List<String> lines = Files.readAllLines(dataFile);
+        int rows = lines.size() - 1;
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            List<String> chunkLines = new ArrayList<>();
+            chunkLines.add(lines.get(0));
+            chunkLines.addAll(lines.subList(1 + chunk * rows / CHUNKS, 1 + (chunk + 1) * rows / CHUNKS));
+            Path chunkFile = Files.createTempFile("library-stress-" + chunk + "-", ".csv");
+            chunkFiles.add(chunkFile);
+            Files.write(chunkFile, chunkLines);
+        }
+    }
+
+    /**
+     * Run readers and writers for the given time and check the final state.
+     * @return true if no violation has been found
+     */
+    private boolean run(int readerCount, int writerCount, int seconds) {
+        for (Path chunkFile : chunkFiles) {
+            data.loadData(chunkFile, NullOutputSink.INSTANCE);
+        }
+        System.out.printf(Locale.ROOT, "%d book entries, %d reader(s), %d writer(s), %d s%n",
+                data.size(), readerCount, writerCount, seconds);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readerCount; i++) {
+            threads.add(new Thread(guarded(this::read, i), "reader-" + i));
+        }
+        for (int i = 0; i < writerCount; i++) {
+            threads.add(new Thread(guarded(this::write, readerCount + i), "writer-" + i));
+        }
+        threads.forEach(Thread::start);
+        try {
+            Thread.sleep(seconds * 1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopped.set(true);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        checkFinalState();
+        System.out.printf(Locale.ROOT, "%d reads, %d writes, %d violation(s)%n",
+                reads.get(), writes.get(), violations.size());
+        violations.stream().limit(MAX_REPORTED).forEach(violation -> System.err.println("ERROR: " + violation));
+        return violations.isEmpty();
+    }
+
+    /**
+     * Wrap a loop of a thread, so any exception is recorded as violation.
+     * @param loop loop taking the seed of the random generator of the thread
+     * @param seed seed of the thread
+     * @return runnable for the thread
+     */
+    private Runnable guarded(Consumer<Random> loop, int seed) {
+        return () -> {
+            try {
+                loop.accept(new Random(seed));
+            } catch (RuntimeException | Error e) {
+                violations.add(Thread.currentThread().getName() + " failed: " + e);
+                stopped.set(true);
+            }
+        };
+    }
+
+    /** Run commands and check query results until stopped. */
+    private void read(Random random) {
+        long lastVersion = data.getVersion();
+        while (!stopped.get()) {
+            String term = SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)];
+            String author = authors.get(random.nextInt(authors.size()));
+            switch (random.nextInt(7)) {
+                case 0:
+                    execute("SEARCH " + term);
+                    checkEntries("SEARCH " + term, data.searchTitles(term));
+                    for (BookEntry book : data.searchTitles(term)) {
+                        check(book.getTitle().toLowerCase().contains(term), "SEARCH " + term + " found " + book.getTitle());
+                    }
+                    break;
+                case 1:
+                    execute("LIST");
+                    checkEntries("LIST", data.getBookData());
+                    break;
+                case 2:
+                    execute("GROUP TITLE");
+                    checkTitleOrder(data.getBooksByTitle());
+                    break;
+                case 3:
+                    execute("GROUP AUTHOR");
+                    List<BookEntry> books = data.getBooksByAuthor(author);
+                    checkEntries("author " + author, books);
+                    for (BookEntry book : books) {
+                        check(List.of(book.getAuthors()).contains(author), "books of " + author + " contain " + book);
+                    }
+                    break;
+                case 4:
+                    checkTop(data.getTopBooks(NumericField.RATING, TOP_COUNT));
+                    break;
+                case 5:
+                    double min = random.nextInt(50) / 10.0;
+                    List<BookEntry> range = data.getBooksInRange(NumericField.RATING, min, min + 0.5);
+                    checkEntries("RANGE RATING", range);
+                    for (int i = 0; i < range.size(); i++) {
+                        float rating = range.get(i).getRating();
+                        check(rating >= (float) min && rating <= (float) (min + 0.5), "RANGE RATING " + min + " found " + rating);
+                        check(i == 0 || range.get(i - 1).getRating() <= rating, "RANGE RATING " + min + " is not ascending");
+                    }
+                    break;
+                default:
+                    execute("LIST long");
+                    break;
+            }
+            long version = data.getVersion();
+            check(version >= lastVersion, "version decreased from " + lastVersion + " to " + version);
+            lastVersion = version;
+            reads.incrementAndGet();
+        }
+    }
+
+    /** Add chunks and remove titles and authors until stopped. */
+    private void write(Random random) {
+        while (!stopped.get()) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    execute("ADD " + chunkFiles.get(random.nextInt(chunkFiles.size())));
+                    break;
+                case 1:
+                    execute("REMOVE AUTHOR " + authors.get(random.nextInt(authors.size())));
+                    break;
+                default:
+                    for (int i = 0; i < 20; i++) {
+                        execute("REMOVE TITLE " + titles.get(random.nextInt(titles.size())));
+                    }
+                    break;
+            }
+            writes.incrementAndGet();
+        }
+    }
+
+    /** Add all chunks again and check that the library holds exactly the generated entries. */
+    private void checkFinalState() {
+        for (Path chunkFile : chunkFiles) {
+            data.loadData(chunkFile, NullOutputSink.INSTANCE);
+        }
+        List<BookEntry> books = data.getBookData();
+        checkEntries("final LIST", books);
+        check(books.size() == universe.size() && data.size() == universe.size(),
+                "final library holds " + books.size() + " of " + universe.size() + " entries");
+        List<BookEntry> byTitle = data.getBooksByTitle();
+        checkTitleOrder(byTitle);
+        check(byTitle.size() == universe.size(), "final title order holds " + byTitle.size() + " entries");
+        int authorEntries = 0;
+        for (String author : data.getAuthors()) {
+            authorEntries += data.getBooksByAuthor(author).size();
+        }
+        int expectedAuthorEntries = 0;
+        for (BookEntry book : universe) {
+            expectedAuthorEntries += new HashSet<>(List.of(book.getAuthors())).size();
+        }
+        check(authorEntries == expectedAuthorEntries,
+                "final author index holds " + authorEntries + " of " + expectedAuthorEntries + " entries");
+    }
+
+    private void execute(String line) {
+        LibraryCommand command = cmdIntrp.parseCommand(line);
+        check(command != null, "command could not be parsed: " + line);
+        if (command != null) {
+            cmdIntrp.executeCommand(command, data, NullOutputSink.INSTANCE);
+        }
+    }
+
+    private void checkEntries(String query, List<BookEntry> books) {
+        Set<BookEntry> seen = new HashSet<>();
+        for (BookEntry book : books) {
+            check(universe.contains(book), query + " returned an unknown entry " + book);
+            check(seen.add(book), query + " returned an entry twice: " + book.getTitle());
+        }
+    }
+
+    private void checkTitleOrder(List<BookEntry> books) {
+        checkEntries("GROUP TITLE", books);
+        for (int i = 1; i < books.size(); i++) {
+            check(getTitleKey(books.get(i - 1)).compareTo(getTitleKey(books.get(i))) <= 0,
+                    "GROUP TITLE order broken at " + books.get(i).getTitle());
+        }
+    }
+
+    private void checkTop(List<BookEntry> books) {
+        checkEntries("TOP RATING", books);
+        check(books.size() <= TOP_COUNT, "TOP RATING returned " + books.size() + " entries");
+        for (int i = 1; i < books.size(); i++) {
+            check(books.get(i - 1).getRating() >= books.get(i).getRating(), "TOP RATING is not descending");
+        }
+    }
+
+    /** Get the key of the title order of GROUP TITLE: titles starting with a digit last, ignoring case. */
+    private static String getTitleKey(BookEntry book) {
+        String title = book.getTitle().toLowerCase();
+        return (!title.isEmpty() && Character.isDigit(title.charAt(0)) ? '1' : '0') + title;
+    }
+
+    private void check(boolean condition, String violation) {
+        if (!condition) {
+            violations.add(violation);
+        }
+    }
+}
@@ -47,18 +47,19 @@ public class ListCmd extends LibraryCommand {
      * library data with the list type that user inputted.
      *
      * @param data book data to be printed.
+     * @param out sink the list is printed to.
      * @throws NullPointerException if given LibraryData is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, OutputSink out) {
         Objects.requireNonNull(data,"The data shouldn't be null.");
         List<BookEntry> books = data.getBookData();
-        if (checkAndPrintBookSize(books.size())){
+        if (checkAndPrintBookSize(books.size(), out)){
             if (listType.equals(LONG)){
-                printListLong(books);
+                printListLong(books, out);
             }
             else if(listType.equals(SHORT)){
-                printListShort(books);
+                printListShort(books, out);
             }
         }
     }
@@ -66,15 +67,16 @@ public class ListCmd extends LibraryCommand {
     /**
      * Check the number of books inside the library data and print how many books in the console.
      * @param booksSize number of books inside the library data.
+     * @param out sink the number of books is printed to.
      * @return true if the number of books are not zero.
      */
-    private boolean checkAndPrintBookSize(int booksSize){
+    private boolean checkAndPrintBookSize(int booksSize, OutputSink out){
         if (booksSize == 0){
-            System.out.println("The library has no book entries.");
+            out.println("The library has no book entries.");
             return false;
         }
         else{
-            System.out.println(booksSize + " books in library:");
+            out.println(booksSize + " books in library:");
             return true;
         }
     }
@@ -82,21 +84,32 @@ public class ListCmd extends LibraryCommand {
     /**
      * Printing the long list for library data in the console that includes every details of each book.
      * @param books the list of books inside library data.
+     * @param out sink the list is printed to.
      */
-    private void printListLong(List<BookEntry> books){
+    private void printListLong(List<BookEntry> books, OutputSink out){
         for (BookEntry book : books) {
-            System.out.println(book.toString());
-            System.out.println();
+            out.println(book.toString());
+            out.println();
         }
     }
 
     /**
      * Printing the short list for library data in the console that only includes the title of each book.
      * @param books the list of books inside library data.
+     * @param out sink the list is printed to.
      */
-    private void printListShort(List<BookEntry> books){
+    private void printListShort(List<BookEntry> books, OutputSink out){
         for (BookEntry book : books) {
-            System.out.println(book.getTitle());
+            out.println(book.getTitle());
         }
     }
+
+    /**
+     * Listing only reads the loaded book entries.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
 }
@@ -1,12 +1,89 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /** Main entry point into the library browser program. */
 public class Main {
 
+    /** Program argument selecting the columnar book store. */
+    private static final String COLUMNAR_OPTION = "--columnar";
+    /** Program argument followed by the snapshot file to start from and save to on exit. */
+    private static final String SNAPSHOT_OPTION = "--snapshot";
+    /** Program argument followed by the write-ahead log file recording all changes. */
+    private static final String LOG_OPTION = "--wal";
+    /** Program argument followed by the port to serve the library on instead of the console. */
+    private static final String SERVER_OPTION = "--server";
+
     /**
      * Start the library browser program.
-     * @param args not used for arguments
+     * @param args optionally COLUMNAR_OPTION to store the book data in columns and
+     *             SNAPSHOT_OPTION followed by a snapshot file to start from and
+     *             LOG_OPTION followed by a log file to replay and record changes in and
+     *             SERVER_OPTION followed by a port to accept commands from network clients
      */
     public static void main(String[] args) {
-        LibraryBrowser browser = new LibraryBrowser();
-        browser.run();
+        boolean columnar = false;
+        Path snapshotFile = null;
+        Path logFile = null;
+        int serverPort = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(COLUMNAR_OPTION)) {
+                columnar = true;
+            } else if (args[i].equals(SNAPSHOT_OPTION) && i + 1 < args.length) {
+                snapshotFile = Paths.get(args[++i]);
+            } else if (args[i].equals(LOG_OPTION) && i + 1 < args.length) {
+                logFile = Paths.get(args[++i]);
+            } else if (args[i].equals(SERVER_OPTION) && i + 1 < args.length) {
+                serverPort = parsePort(args[++i]);
+                if (serverPort == -1) {
+                    return;
+                }
+            } else {
+                System.err.println("ERROR: Unknown program argument: " + args[i]);
+                return;
+            }
+        }
+
+        BookStore store = columnar ? new ColumnarBookStore() : new ObjectBookStore();
+        LibraryData data = null;
+        if (snapshotFile != null && Files.exists(snapshotFile)) {
+            data = LibraryData.loadSnapshot(snapshotFile, store);
+            if (data == null) {
+                /* Starting empty would overwrite the unreadable snapshot on exit. */
+                System.err.println("ERROR: Not starting, snapshot could not be read and would be lost: "
+                        + snapshotFile);
+                return;
+            }
+        }
+        if (data == null) {
+            data = new LibraryData(store.createEmpty());
+        }
+        if (logFile != null && !data.openLog(logFile)) {
+            return;
+        }
+        if (serverPort != -1) {
+            new LibraryServer(data, serverPort, snapshotFile).run();
+        } else {
+            LibraryBrowser browser = new LibraryBrowser(data, snapshotFile);
+            browser.run();
+        }
+    }
+
+    /**
+     * Parse the port given as program argument.
+     * @param argument program argument to be parsed
+     * @return the port or -1 if the argument is not a valid port number
+     */
+    private static int parsePort(String argument) {
+        try {
+            int port = Integer.parseInt(argument);
+            if (port >= 0 && port <= 0xFFFF) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("ERROR: Invalid server port: " + argument);
+        return -1;
     }
 }
@@ -0,0 +1,17 @@
+/**
+ * Receiver of the changes made to the book entries of a library.
+ */
+public interface MutationLog {
+
+    /**
+     * Called after a book entry has been added to the library.
+     * @param entry the added book entry
+     */
+    void added(BookEntry entry);
+
+    /**
+     * Called after a book entry has been removed from the library.
+     * @param entry the removed book entry
+     */
+    void removed(BookEntry entry);
+}
@@ -0,0 +1,29 @@
+/**
+ * Output sink dropping all output, for instance to measure the cost of
+ * executing commands without the cost of writing their output.
+ */
+public final class NullOutputSink implements OutputSink {
+
+    /** The only instance, since the sink has no state. */
+    public static final NullOutputSink INSTANCE = new NullOutputSink();
+
+    /** Use INSTANCE instead. */
+    private NullOutputSink() {
+        // nothing to do
+    }
+
+    @Override
+    public void print(String text) {
+        // dropped
+    }
+
+    @Override
+    public void println(String line) {
+        // dropped
+    }
+
+    @Override
+    public void flush() {
+        // nothing to do
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.Objects;
+
+/**
+ * Numeric fields of book entries which can be queried by range and rank.
+ *
+ * Every value is mapped to an int key with the same order as the values, so
+ * entries can be sorted and searched by their keys without boxing.
+ */
+public enum NumericField {
+    RATING,
+    PAGES;
+
+    /**
+     * Get the key of the field value of a stored book entry.
+     * @param store store holding the entry
+     * @param id id of the entry
+     * @return key ordered like the field values
+     */
+    int getKey(BookStore store, int id) {
+        switch (this) {
+            case RATING: return getRatingKey(store.getRating(id));
+            case PAGES: return store.getPages(id);
+            default: throw new IllegalStateException("Field not supported: " + this);
+        }
+    }
+
+    /**
+     * Get the smallest key of all values greater than or equal to the given bound.
+     * Ratings are stored as floats, so bounds are rounded to floats first and
+     * a bound of 4.9 includes the entries rated 4.9.
+     * @param min lower bound of the values
+     * @return smallest matching key, may be outside the int range
+     */
+    long getLowerKey(double min) {
+        switch (this) {
+            case RATING:
+                return getRatingKey((float) min);
+            case PAGES: return (long) Math.ceil(min);
+            default: throw new IllegalStateException("Field not supported: " + this);
+        }
+    }
+
+    /**
+     * Get the largest key of all values less than or equal to the given bound.
+     * @param max upper bound of the values
+     * @return largest matching key, may be outside the int range
+     */
+    long getUpperKey(double max) {
+        switch (this) {
+            case RATING:
+                return getRatingKey((float) max);
+            case PAGES: return (long) Math.floor(max);
+            default: throw new IllegalStateException("Field not supported: " + this);
+        }
+    }
+
+    /**
+     * Describe the field value of a book entry, such as "rating 4.50" or "320 pages".
+     * @param book book entry to be described
+     * @return the field value with its unit
+     * @throws NullPointerException if the given entry is null
+     */
+    public String describe(BookEntry book) {
+        Objects.requireNonNull(book, "Given book entry must not be null.");
+        switch (this) {
+            case RATING: return "rating " + String.format("%.2f", book.getRating());
+            case PAGES: return book.getPages() + " pages";
+            default: throw new IllegalStateException("Field not supported: " + this);
+        }
+    }
+
+    /**
+     * Get the field with the given name.
+     * @param name name of the field, such as RATING
+     * @return the field or null if there is no field with the given name
+     */
+    public static NumericField parse(String name) {
+        for (NumericField field : values()) {
+            if (field.name().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Map a rating to an int with the same order, by flipping all but the
+     * sign bit of negative ratings.
+     * @param rating rating of a book entry
+     * @return key of the rating
+     */
+    private static int getRatingKey(float rating) {
+        int bits = Float.floatToIntBits(rating);
+        return bits < 0 ? bits ^ Integer.MAX_VALUE : bits;
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Immutable index of book entry ids sorted by the key of a numeric field.
+ *
+ * Keys and ids are kept in two parallel primitive arrays, sorted by key and, for
+ * equal keys, by id, so entries with the same value keep the order they were added
+ * in. Ranges are found by binary search and the highest keys are read from the end
+ * of the arrays, so queries only visit the entries they return.
+ *
+ * The index covers all ids below its id limit. Entries removed later stay in the
+ * index and are skipped by queries, entries added later are merged into a new index
+ * by withAdded, so the index does not have to be sorted again after every change.
+ */
+public final class NumericIndex {
+
+    /** Keys of the indexed entries in ascending order. */
+    private final int[] keys;
+    /** Ids of the indexed entries, in the order of their keys. */
+    private final int[] ids;
+    /** Id following the ids covered by the index. */
+    private final int idLimit;
+
+    /**
+     * Create an index over the given entries.
+     * @param ids ids of the entries to be indexed, none of them negative
+     * @param keyOf function giving the key of every entry id
+     * @param idLimit id following all given ids, entries added later get this id or greater ones
+     */
+    public NumericIndex(int[] ids, IntUnaryOperator keyOf, int idLimit) {
+        /* Sort key and id packed into a long, so no objects are created. */
+        long[] entries = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            entries[i] = (long) keyOf.applyAsInt(ids[i]) << Integer.SIZE | ids[i];
+        }
+        Arrays.sort(entries);
+        keys = new int[entries.length];
+        this.ids = new int[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = (int) (entries[i] >> Integer.SIZE);
+            this.ids[i] = (int) entries[i];
+        }
+        this.idLimit = idLimit;
+    }
+
+    private NumericIndex(int[] keys, int[] ids, int idLimit) {
+        this.keys = keys;
+        this.ids = ids;
+        this.idLimit = idLimit;
+    }
+
+    /**
+     * Get the id following the ids covered by this index.
+     * @return the id limit given when the index was created
+     */
+    public int getIdLimit() {
+        return idLimit;
+    }
+
+    /**
+     * Create an index holding the live entries of this index and the given added entries.
+     * Only the added entries are sorted, the rest is merged in a single pass.
+     * @param addedIds ids of the added entries, all of them at least the id limit of this index
+     * @param keyOf function giving the key of every entry id
+     * @param idLimit id following all given ids
+     * @param live condition telling which ids of this index are kept
+     * @return the new index
+     */
+    public NumericIndex withAdded(int[] addedIds, IntUnaryOperator keyOf, int idLimit, IntPredicate live) {
+        NumericIndex added = new NumericIndex(addedIds, keyOf, idLimit);
+        int[] mergedKeys = new int[ids.length + added.ids.length];
+        int[] mergedIds = new int[mergedKeys.length];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (!live.test(ids[i])) {
+                continue;
+            }
+            /* Added ids are greater than all others, so for equal keys they come last. */
+            for (; j < added.ids.length && added.keys[j] < keys[i]; j++, size++) {
+                mergedKeys[size] = added.keys[j];
+                mergedIds[size] = added.ids[j];
+            }
+            mergedKeys[size] = keys[i];
+            mergedIds[size] = ids[i];
+            size++;
+        }
+        for (; j < added.ids.length; j++, size++) {
+            mergedKeys[size] = added.keys[j];
+            mergedIds[size] = added.ids[j];
+        }
+        return new NumericIndex(Arrays.copyOf(mergedKeys, size), Arrays.copyOf(mergedIds, size), idLimit);
+    }
+
+    /**
+     * Get the number of indexed entries, including removed ones.
+     * @return number of entries
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Get the ids of all entries with a key in the given range.
+     * @param minKey smallest key to be included
+     * @param maxKey largest key to be included
+     * @param live condition the returned ids have to fulfil, usually not being removed
+     * @return ids in ascending order of their keys
+     */
+    public int[] getRange(long minKey, long maxKey, IntPredicate live) {
+        if (minKey > maxKey) {
+            return new int[0];
+        }
+        /* All keys are ints, so limiting the upper bound keeps maxKey + 1 from overflowing. */
+        return copyLive(findFirst(minKey, 0, keys.length),
+                findFirst(Math.min(maxKey, Integer.MAX_VALUE) + 1, 0, keys.length), live);
+    }
+
+    /**
+     * Get the ids of the entries with the highest keys. Entries with equal
+     * keys are kept in ascending order of their ids.
+     *
+     * The start of every run of equal keys is found by searching backwards in
+     * growing steps, so a query costs O(log n + k) for k returned ids, plus the
+     * removed entries skipped.
+     * @param count largest number of ids returned
+     * @param live condition the returned ids have to fulfil, usually not being removed
+     * @return ids in descending order of their keys
+     */
+    public int[] getHighest(int count, IntPredicate live) {
+        int[] highest = new int[Math.max(0, Math.min(count, ids.length))];
+        int filled = 0;
+        int end = ids.length;
+        while (filled < highest.length && end > 0) {
+            /* Copy the entries with the next lower key, in ascending order of their ids. */
+            int start = findRunStart(end);
+            for (int i = start; i < end && filled < highest.length; i++) {
+                if (live.test(ids[i])) {
+                    highest[filled++] = ids[i];
+                }
+            }
+            end = start;
+        }
+        return filled == highest.length ? highest : Arrays.copyOf(highest, filled);
+    }
+
+    /**
+     * Get the ids of all entries sorted by their keys.
+     * @param descending whether the highest keys come first
+     * @param live condition the returned ids have to fulfil, usually not being removed
+     * @return ids of all entries
+     */
+    public int[] getAll(boolean descending, IntPredicate live) {
+        return descending ? getHighest(ids.length, live) : copyLive(0, ids.length, live);
+    }
+
+    /**
+     * Copy the ids at the given positions which fulfil the given condition.
+     * @param from first position to be copied
+     * @param to position following the last one to be copied
+     * @param live condition the copied ids have to fulfil
+     * @return ids in the order of their positions
+     */
+    private int[] copyLive(int from, int to, IntPredicate live) {
+        int[] result = new int[to - from];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            if (live.test(ids[i])) {
+                result[size++] = ids[i];
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Find the first entry with the same key as the entry before the given position.
+     * Steps backwards double in size, so a run of r equal keys is found in O(log r).
+     * @param end position following the run, greater than 0
+     * @return position of the first entry of the run
+     */
+    private int findRunStart(int end) {
+        int key = keys[end - 1];
+        int inRun = end - 1;
+        int step = 1;
+        while (inRun - step >= 0 && keys[inRun - step] == key) {
+            inRun -= step;
+            step <<= 1;
+        }
+        return findFirst(key, Math.max(0, inRun - step + 1), inRun);
+    }
+
+    /**
+     * Find the first entry with a key greater than or equal to the given one.
+     * @param key key to look for
+     * @param from first position to be searched
+     * @param to position following the last one to be searched
+     * @return position of the first such entry or to if there is none
+     */
+    private int findFirst(long key, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
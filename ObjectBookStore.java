@@ -0,0 +1,97 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * Book store keeping every book entry as an object.
+ */
+public class ObjectBookStore implements BookStore {
+
+    /** Initial number of entries the store can hold. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Stored book entries, addressed by id. Only the first size elements are used, and
+     * they are never overwritten, the array is replaced by a larger copy when it is full.
+     */
+    private BookEntry[] entries;
+    /** Number of stored entries. */
+    private int size;
+    /** Ids of the removed entries. */
+    private final BitSet removed;
+
+    /** Create a new and empty store. */
+    public ObjectBookStore() {
+        entries = new BookEntry[INITIAL_CAPACITY];
+        size = 0;
+        removed = new BitSet();
+    }
+
+    @Override
+    public int add(BookEntry entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size + (size >> 1));
+        }
+        entries[size] = entry;
+        return size++;
+    }
+
+    @Override
+    public BookEntry get(int id) {
+        checkId(id);
+        return entries[id];
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return get(id).getTitle();
+    }
+
+    @Override
+    public float getRating(int id) {
+        return get(id).getRating();
+    }
+
+    @Override
+    public int getPages(int id) {
+        return get(id).getPages();
+    }
+
+    @Override
+    public IntFunction<BookEntry> reader() {
+        BookEntry[] storedEntries = entries;
+        int storedSize = size;
+        return id -> {
+            if (id < 0 || id >= storedSize) {
+                throw new IndexOutOfBoundsException("Index " + id + " out of bounds for size " + storedSize);
+            }
+            return storedEntries[id];
+        };
+    }
+
+    @Override
+    public void remove(int id) {
+        removed.set(id);
+    }
+
+    @Override
+    public boolean isRemoved(int id) {
+        return removed.get(id);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public BookStore createEmpty() {
+        return new ObjectBookStore();
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Index " + id + " out of bounds for size " + size);
+        }
+    }
+}
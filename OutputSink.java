@@ -0,0 +1,29 @@
+/**
+ * Destination of the output of library commands.
+ *
+ * Commands write their output line by line into a sink, which decides whether
+ * it is written to a stream, kept in memory or dropped. Sinks are not thread-safe,
+ * every thread executing commands needs its own sink.
+ */
+public interface OutputSink {
+
+    /**
+     * Write the given text without ending the line.
+     * @param text text to be written
+     */
+    void print(String text);
+
+    /**
+     * Write the given text as a complete line.
+     * @param line text of the line
+     */
+    void println(String line);
+
+    /** Write an empty line. */
+    default void println() {
+        println("");
+    }
+
+    /** Pass all buffered output on to its destination. */
+    void flush();
+}
@@ -0,0 +1,471 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index completing prefixes of texts such as titles or author names, for SUGGEST.
+ *
+ * Texts are stored ignoring case in a radix trie, whose edges are labelled with the
+ * characters all texts below them share. Every text is ranked by the highest rating
+ * of the book entries it was added for, and every node keeps the best ranked texts of
+ * its subtree, so completing a prefix only walks down the edges of the prefix and
+ * copies the ranking of the node found, independent of the number of texts.
+ *
+ * Rankings are kept up to date on every change: a text which ranks higher only has to
+ * be inserted into the rankings on its path, and only the rankings a text which ranks
+ * lower is part of are rebuilt from the rankings of the child nodes. Leaves rank just
+ * their own text, so their rankings are not stored.
+ *
+ * The ratings of the entries holding a text are kept in a max-heap. Removed ratings are
+ * collected in a second heap and only dropped once they reach the top of the first, so
+ * removing an entry takes O(log k) for a text held by k entries.
+ */
+public final class PrefixIndex {
+
+    /** Number of completions kept per node and returned at most for a prefix. */
+    public static final int SUGGESTION_COUNT = 10;
+    /** Children of nodes without children. */
+    private static final Node[] NO_CHILDREN = new Node[0];
+    /** Characters of empty labels and of nodes without children. */
+    private static final char[] NO_CHARS = new char[0];
+    /** Initial capacity of the list of nodes on the path of a text. */
+    private static final int PATH_CAPACITY = 32;
+
+    /** Root of the trie, whose label is empty. */
+    private Node root;
+
+    /** Create a new and empty prefix index. */
+    public PrefixIndex() {
+        root = new Node(NO_CHARS);
+    }
+
+    /**
+     * Add a text of a book entry to the index.
+     * @param text text to be completed, such as the title of the entry
+     * @param rating rating of the book entry
+     */
+    public void add(String text, float rating) {
+        char[] key = text.toLowerCase().toCharArray();
+        List<Node> path = new ArrayList<>(PATH_CAPACITY);
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length) {
+            int index = findChild(node, key[position]);
+            if (index < 0) {
+                Node leaf = new Node(Arrays.copyOfRange(key, position, key.length));
+                insertChild(node, -index - 1, leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node child = node.children[index];
+            int common = getCommonLength(child.label, key, position);
+            if (common < child.label.length) {
+                /* The key ends or branches off within the label, so the edge is split. */
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.children = new Node[] { child };
+                middle.top = child.copyRanking();
+                middle.topSize = middle.top.length;
+                middle.childChars = new char[] { child.label[0] };
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            position += common;
+        }
+
+        boolean raised = node.addEntry(text, rating);
+        /* Ancestors rank more texts, so a text not ranked by a node is not ranked above it. */
+        for (int i = path.size() - 1; raised && i >= 0; i--) {
+            raised = raise(path.get(i), node);
+        }
+    }
+
+    /**
+     * Remove a text of a book entry from the index.
+     * @param text text the entry was added with
+     * @param rating rating the entry was added with
+     */
+    public void remove(String text, float rating) {
+        char[] key = text.toLowerCase().toCharArray();
+        List<Node> path = new ArrayList<>(PATH_CAPACITY);
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length) {
+            int index = findChild(node, key[position]);
+            if (index < 0) {
+                return;
+            }
+            node = node.children[index];
+            if (getCommonLength(node.label, key, position) < node.label.length) {
+                return;
+            }
+            path.add(node);
+            position += node.label.length;
+        }
+
+        boolean lowered = node.removeEntry(rating);
+        for (int i = path.size() - 1; lowered && i >= 0; i--) {
+            Node pathNode = path.get(i);
+            lowered = pathNode.ranks(node);
+            if (lowered) {
+                rebuildRanking(pathNode);
+            }
+        }
+        if (node.text == null && node != root) {
+            prune(path);
+        }
+    }
+
+    /**
+     * Get the best ranked texts starting with the given prefix, ignoring case.
+     * @param prefix prefix of the texts
+     * @return at most SUGGESTION_COUNT texts, the highest rated first and texts
+     * with the same rating in alphabetical order
+     */
+    public List<String> complete(String prefix) {
+        char[] key = prefix.toLowerCase().toCharArray();
+        Node node = root;
+        int position = 0;
+        while (position < key.length) {
+            int index = findChild(node, key[position]);
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children[index];
+            int length = Math.min(node.label.length, key.length - position);
+            if (getCommonLength(node.label, key, position) < length) {
+                return List.of();
+            }
+            position += length;
+        }
+        List<String> texts = new ArrayList<>(node.getRankedCount());
+        for (int i = 0; i < node.getRankedCount(); i++) {
+            texts.add(node.getRanked(i).text);
+        }
+        return texts;
+    }
+
+    /** Remove all texts from the index. */
+    public void clear() {
+        root = new Node(NO_CHARS);
+    }
+
+    /**
+     * Insert a text node which ranks higher than before into the ranking of a node.
+     * @param node node on the path of the text node
+     * @param text text node whose rank has been raised
+     * @return true if the text is ranked by the node
+     */
+    private static boolean raise(Node node, Node text) {
+        if (node.children.length == 0) {
+            return true;
+        }
+        int index = 0;
+        while (index < node.topSize && node.top[index] != text) {
+            index++;
+        }
+        if (index < node.topSize) {
+            System.arraycopy(node.top, index + 1, node.top, index, node.topSize - index - 1);
+            node.topSize--;
+        }
+        int position = node.topSize;
+        while (position > 0 && compare(text, node.top[position - 1]) < 0) {
+            position--;
+        }
+        if (position == SUGGESTION_COUNT) {
+            return false;
+        }
+        if (node.topSize == node.top.length) {
+            node.top = Arrays.copyOf(node.top, Math.min(Math.max(1, node.topSize * 2), SUGGESTION_COUNT));
+        }
+        int moved = Math.min(node.topSize, SUGGESTION_COUNT - 1) - position;
+        System.arraycopy(node.top, position, node.top, position + 1, moved);
+        node.top[position] = text;
+        node.topSize = position + moved + 1;
+        return true;
+    }
+
+    /**
+     * Rebuild the ranking of a node from its own text and the rankings of its
+     * children, which are complete since every text of a subtree is ranked
+     * within the subtree of one child.
+     * @param node node whose ranking is to be rebuilt
+     */
+    private static void rebuildRanking(Node node) {
+        if (node.children.length == 0) {
+            return;
+        }
+        List<Node> candidates = new ArrayList<>();
+        if (node.text != null) {
+            candidates.add(node);
+        }
+        for (Node child : node.children) {
+            for (int i = 0; i < child.getRankedCount(); i++) {
+                candidates.add(child.getRanked(i));
+            }
+        }
+        candidates.sort(PrefixIndex::compare);
+        node.topSize = Math.min(candidates.size(), SUGGESTION_COUNT);
+        node.top = candidates.subList(0, node.topSize).toArray(NO_CHILDREN);
+    }
+
+    /**
+     * Remove the last node of the path, which no longer holds a text, if it has no
+     * children, and merge nodes which are left with a single child and no text with
+     * that child, so every inner node branches or ends a text.
+     * @param path nodes from the root to the node which lost its text
+     */
+    private void prune(List<Node> path) {
+        Node node = path.get(path.size() - 1);
+        Node parent = path.get(path.size() - 2);
+        if (node.children.length == 0) {
+            removeChild(parent, node);
+            if (parent.text == null && parent.children.length == 1 && parent != root) {
+                mergeWithChild(path.get(path.size() - 3), parent);
+            }
+        } else if (node.children.length == 1) {
+            mergeWithChild(parent, node);
+        }
+    }
+
+    /**
+     * Replace a node having a single child and no text by the child.
+     * @param parent parent of the node
+     * @param node node to be replaced
+     */
+    private static void mergeWithChild(Node parent, Node node) {
+        Node child = node.children[0];
+        char[] label = Arrays.copyOf(node.label, node.label.length + child.label.length);
+        System.arraycopy(child.label, 0, label, node.label.length, child.label.length);
+        child.label = label;
+        parent.children[findChild(parent, label[0])] = child;
+    }
+
+    /**
+     * Compare text nodes by their rank: higher ratings first, equal ratings
+     * in alphabetical order of their texts.
+     */
+    private static int compare(Node first, Node second) {
+        int result = Float.compare(second.score, first.score);
+        return result != 0 ? result : first.text.compareTo(second.text);
+    }
+
+    /**
+     * Find the child whose label starts with the given character.
+     * @param node node whose children are searched
+     * @param first first character of the label
+     * @return index of the child, or -(insertion point) - 1 if there is none
+     */
+    private static int findChild(Node node, char first) {
+        return Arrays.binarySearch(node.childChars, first);
+    }
+
+    private static void insertChild(Node node, int index, Node child) {
+        int count = node.children.length;
+        if (count == 0) {
+            /* The node is no longer a leaf, so its ranking has to be stored. */
+            node.top = node.copyRanking();
+            node.topSize = node.top.length;
+        }
+        Node[] children = new Node[count + 1];
+        char[] childChars = new char[count + 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.childChars, 0, childChars, 0, index);
+        children[index] = child;
+        childChars[index] = child.label[0];
+        System.arraycopy(node.children, index, children, index + 1, count - index);
+        System.arraycopy(node.childChars, index, childChars, index + 1, count - index);
+        node.children = children;
+        node.childChars = childChars;
+    }
+
+    private static void removeChild(Node node, Node child) {
+        int index = findChild(node, child.label[0]);
+        int count = node.children.length - 1;
+        Node[] children = new Node[count];
+        char[] childChars = new char[count];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.childChars, 0, childChars, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, count - index);
+        System.arraycopy(node.childChars, index + 1, childChars, index, count - index);
+        node.children = children;
+        node.childChars = childChars;
+        if (count == 0) {
+            node.top = NO_CHILDREN;
+            node.topSize = 0;
+        }
+    }
+
+    /**
+     * Add a rating to a max-heap of ratings.
+     * @param heap heap to be added to, null if it has not been created yet
+     * @param size number of ratings in the heap
+     * @param rating rating to be added
+     * @return the heap, which has been grown if it was full
+     */
+    private static float[] pushRating(float[] heap, int size, float rating) {
+        if (heap == null) {
+            heap = new float[1];
+        } else if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int index = size;
+        while (index > 0 && Float.compare(heap[(index - 1) / 2], rating) < 0) {
+            heap[index] = heap[(index - 1) / 2];
+            index = (index - 1) / 2;
+        }
+        heap[index] = rating;
+        return heap;
+    }
+
+    /**
+     * Take the highest rating off a max-heap of ratings.
+     * @param heap heap holding at least one rating
+     * @param size number of ratings in the heap before the highest is taken off
+     */
+    private static void popRating(float[] heap, int size) {
+        float last = heap[--size];
+        int index = 0;
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && Float.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (Float.compare(heap[child], last) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+    }
+
+    /**
+     * Get the number of characters a label shares with a key from the given position on.
+     */
+    private static int getCommonLength(char[] label, char[] key, int position) {
+        int length = Math.min(label.length, key.length - position);
+        int common = 0;
+        while (common < length && label[common] == key[position + common]) {
+            common++;
+        }
+        return common;
+    }
+
+    /** Node of the trie, ending a text if any entries have been added for it. */
+    private static final class Node {
+        /** Lowercased characters of the edge from the parent to this node. */
+        char[] label;
+        /** Child nodes, in order of the first characters of their labels. */
+        Node[] children;
+        /** First characters of the labels of the child nodes, for searching them. */
+        char[] childChars;
+        /** Text ending at this node as first added, null if no entry holds it. */
+        String text;
+        /** Ratings of the entries holding the text as a max-heap, including removed ones. */
+        float[] ratings;
+        /** Number of ratings in the heap. */
+        int ratingCount;
+        /** Ratings of removed entries still part of the ratings heap, as a max-heap. */
+        float[] removedRatings;
+        /** Number of ratings of removed entries. */
+        int removedCount;
+        /** Rank of the text, the highest rating of the entries holding it. */
+        float score;
+        /** Best ranked text nodes of the subtree, best first, not used by leaves. */
+        Node[] top;
+        /** Number of ranked text nodes, not used by leaves. */
+        int topSize;
+
+        Node(char[] label) {
+            this.label = label;
+            children = NO_CHILDREN;
+            childChars = NO_CHARS;
+            top = NO_CHILDREN;
+        }
+
+        /**
+         * Add an entry holding the text of this node.
+         * @return true if the text is new or its score has been raised
+         */
+        boolean addEntry(String text, float rating) {
+            boolean first = this.text == null;
+            if (first) {
+                this.text = text;
+            }
+            ratings = pushRating(ratings, ratingCount++, rating);
+            if (first || rating > score) {
+                score = rating;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Remove an entry holding the text of this node.
+         * @return true if the text has been removed or its score has been lowered
+         */
+        boolean removeEntry(float rating) {
+            if (text == null) {
+                return false;
+            }
+            if (ratingCount - removedCount == 1) {
+                text = null;
+                ratings = null;
+                removedRatings = null;
+                ratingCount = 0;
+                removedCount = 0;
+                return true;
+            }
+            removedRatings = pushRating(removedRatings, removedCount++, rating);
+            /* Removed ratings are part of the ratings, so the highest one left is found at the top. */
+            while (removedCount > 0 && Float.compare(removedRatings[0], ratings[0]) == 0) {
+                popRating(ratings, ratingCount--);
+                popRating(removedRatings, removedCount--);
+            }
+            boolean lowered = ratings[0] < score;
+            score = ratings[0];
+            return lowered;
+        }
+
+        /** Get the number of text nodes ranked by this node. */
+        int getRankedCount() {
+            if (children.length == 0) {
+                return text != null ? 1 : 0;
+            }
+            return topSize;
+        }
+
+        /** Get the text node at the given position of the ranking of this node. */
+        Node getRanked(int index) {
+            return children.length == 0 ? this : top[index];
+        }
+
+        /** Copy the ranking of this node into an array. */
+        Node[] copyRanking() {
+            Node[] ranking = new Node[getRankedCount()];
+            for (int i = 0; i < ranking.length; i++) {
+                ranking[i] = getRanked(i);
+            }
+            return ranking;
+        }
+
+        /** Check whether the given text node is part of the ranking of this node. */
+        boolean ranks(Node text) {
+            if (children.length == 0) {
+                return this == text;
+            }
+            for (int i = 0; i < topSize; i++) {
+                if (top[i] == text) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
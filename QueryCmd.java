@@ -0,0 +1,73 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Query command printing the titles of all book entries matching
+ * a boolean query over titles, authors, ratings and page counts.
+ *
+ * @see QueryParser
+ */
+public class QueryCmd extends LibraryCommand {
+    /** The text of the query as inputted by user. */
+    private String queryText;
+    /** The parsed query. */
+    private BookQuery query;
+
+    /**
+     * Create the query command and initialise it with
+     * the given command argument.
+     *
+     * @param argumentInput argument input as expected to be a query such as
+     *                      title:war AND author:tolstoy AND NOT rating&lt;3.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException     if any of the given parameters are null.
+     */
+    public QueryCmd(String argumentInput) {
+        super(CommandType.QUERY, argumentInput);
+    }
+
+    /**
+     * Parse the query the user inputted.
+     *
+     * @param argumentInput argument input which expected to be a valid query.
+     * @return true if the query is valid.
+     * @throws IllegalArgumentException describing the problem if the query is invalid.
+     * @throws NullPointerException if the argumentInput is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+        queryText = argumentInput.strip();
+        query = QueryParser.parse(queryText);
+        return true;
+    }
+
+    /**
+     * Evaluate the query on the library data and print the titles of the
+     * matching books in the order they were added.
+     *
+     * @param data book data to be queried.
+     * @param out sink the matching titles are printed to.
+     * @throws NullPointerException if the library data is null.
+     */
+    @Override
+    public void execute(LibraryData data, OutputSink out) {
+        Objects.requireNonNull(data,"The data shouldn't be null.");
+        List<BookEntry> books = data.query(query);
+        for (BookEntry book : books) {
+            out.println(book.getTitle());
+        }
+        if (books.isEmpty()) {
+            out.println("No book entries match the query: " + queryText);
+        }
+    }
+
+    /**
+     * Querying only reads the indexes and titles of the loaded book entries.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
+}
@@ -0,0 +1,209 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Parser of the boolean query language of the QUERY command.
+ *
+ * A query combines predicates with AND, OR and NOT, where NOT binds strongest and OR
+ * weakest, and parentheses group sub-queries. Predicates following each other without
+ * operator are combined with AND. The predicates are:
+ * <ul>
+ * <li>title:term, titles containing the term</li>
+ * <li>author:term, entries with an author whose name contains the term</li>
+ * <li>rating or pages followed by &lt;, &lt;=, &gt;, &gt;= or = and a number</li>
+ * </ul>
+ * Terms are matched ignoring case and can be quoted to contain spaces, such as
+ * author:"leo tolstoy". Field names and operators are not case sensitive.
+ */
+public final class QueryParser {
+
+    /** Keyword combining two queries which both have to match. */
+    private static final String AND = "AND";
+    /** Keyword combining two queries of which one has to match. */
+    private static final String OR = "OR";
+    /** Keyword negating a query. */
+    private static final String NOT = "NOT";
+    /** Token opening a group. */
+    private static final String OPEN = "(";
+    /** Token closing a group. */
+    private static final String CLOSE = ")";
+    /** Field name of title terms. */
+    private static final String TITLE = "title";
+    /** Field name of author terms. */
+    private static final String AUTHOR = "author";
+    /** Separator between field name and term. */
+    private static final char TERM_SEPARATOR = ':';
+    /** Character quoting terms. */
+    private static final char QUOTE = '"';
+
+    /** Tokens of the parsed query. */
+    private final List<String> tokens;
+    /** Index of the next token to be parsed. */
+    private int position;
+
+    private QueryParser(List<String> tokens) {
+        this.tokens = tokens;
+        position = 0;
+    }
+
+    /**
+     * Parse the given query text.
+     * @param text text of the query, such as title:war AND author:tolstoy AND NOT rating&lt;3
+     * @return the parsed query
+     * @throws IllegalArgumentException if the text is not a valid query
+     * @throws NullPointerException if the given text is null
+     */
+    public static BookQuery parse(String text) {
+        Objects.requireNonNull(text, "Given query text must not be null.");
+        QueryParser parser = new QueryParser(tokenize(text));
+        if (parser.tokens.isEmpty()) {
+            throw new IllegalArgumentException("Query must not be empty.");
+        }
+        BookQuery query = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected token in query: " + parser.tokens.get(parser.position));
+        }
+        return query;
+    }
+
+    /**
+     * Split a query text into parentheses and words, removing quotes.
+     * @param text text of the query
+     * @return tokens of the query
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == QUOTE) {
+                quoted = !quoted;
+            } else if (quoted || !(Character.isWhitespace(c) || c == '(' || c == ')')) {
+                word.append(c);
+            } else {
+                if (word.length() > 0) {
+                    tokens.add(word.toString());
+                    word.setLength(0);
+                }
+                if (!Character.isWhitespace(c)) {
+                    tokens.add(String.valueOf(c));
+                }
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Query contains an unterminated quote.");
+        }
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+        }
+        return tokens;
+    }
+
+    private BookQuery parseOr() {
+        BookQuery query = parseAnd();
+        while (nextIs(OR)) {
+            position++;
+            BookQuery left = query;
+            BookQuery right = parseAnd();
+            query = data -> left.evaluate(data).or(right.evaluate(data));
+        }
+        return query;
+    }
+
+    private BookQuery parseAnd() {
+        BookQuery query = parseNot();
+        while (position < tokens.size() && !nextIs(OR) && !nextIs(CLOSE)) {
+            if (nextIs(AND)) {
+                position++;
+            }
+            BookQuery left = query;
+            BookQuery right = parseNot();
+            query = data -> left.evaluate(data).and(right.evaluate(data));
+        }
+        return query;
+    }
+
+    private BookQuery parseNot() {
+        if (nextIs(NOT)) {
+            position++;
+            BookQuery negated = parseNot();
+            return data -> data.matchAll().andNot(negated.evaluate(data));
+        }
+        if (nextIs(OPEN)) {
+            position++;
+            BookQuery query = parseOr();
+            if (!nextIs(CLOSE)) {
+                throw new IllegalArgumentException("Query is missing a closing parenthesis.");
+            }
+            position++;
+            return query;
+        }
+        if (position == tokens.size()) {
+            throw new IllegalArgumentException("Query ends unexpectedly.");
+        }
+        return parsePredicate(tokens.get(position++));
+    }
+
+    /**
+     * Parse a single predicate such as title:war or rating&gt;=4.5.
+     * @param token token of the predicate
+     * @return query of the predicate
+     */
+    private static BookQuery parsePredicate(String token) {
+        int separator = token.indexOf(TERM_SEPARATOR);
+        if (separator > 0) {
+            String field = token.substring(0, separator).toLowerCase(Locale.ROOT);
+            String term = token.substring(separator + 1);
+            if (term.isEmpty()) {
+                throw new IllegalArgumentException("Query term must not be empty: " + token);
+            }
+            if (field.equals(TITLE)) {
+                return data -> data.matchTitle(term);
+            } else if (field.equals(AUTHOR)) {
+                return data -> data.matchAuthor(term);
+            }
+            throw new IllegalArgumentException("Unknown query field: " + field);
+        }
+
+        int operatorStart = 0;
+        while (operatorStart < token.length() && Character.isLetter(token.charAt(operatorStart))) {
+            operatorStart++;
+        }
+        int operatorEnd = operatorStart;
+        while (operatorEnd < token.length() && "<>=".indexOf(token.charAt(operatorEnd)) >= 0) {
+            operatorEnd++;
+        }
+        NumericField field = NumericField.parse(token.substring(0, operatorStart).toUpperCase(Locale.ROOT));
+        if (field == null || operatorStart == operatorEnd) {
+            throw new IllegalArgumentException("Invalid query predicate: " + token);
+        }
+        double value;
+        try {
+            value = Double.parseDouble(token.substring(operatorEnd));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in query predicate: " + token);
+        }
+
+        /* Exclusive bounds are the keys next to the inclusive bound of the other side. */
+        long minKey = field.getLowerKey(Double.NEGATIVE_INFINITY);
+        long maxKey = field.getUpperKey(Double.POSITIVE_INFINITY);
+        switch (token.substring(operatorStart, operatorEnd)) {
+            case "<": maxKey = field.getLowerKey(value) - 1; break;
+            case "<=": maxKey = field.getUpperKey(value); break;
+            case ">": minKey = field.getUpperKey(value) + 1; break;
+            case ">=": minKey = field.getLowerKey(value); break;
+            case "=": minKey = field.getLowerKey(value); maxKey = field.getUpperKey(value); break;
+            default: throw new IllegalArgumentException("Invalid operator in query predicate: " + token);
+        }
+        long rangeMin = minKey;
+        long rangeMax = maxKey;
+        return data -> data.matchRange(field, rangeMin, rangeMax);
+    }
+
+    private boolean nextIs(String keyword) {
+        return position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword);
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Range command printing the book entries with a rating or page count within given bounds.
+ */
+public class RangeCmd extends LibraryCommand {
+    /** A string that represent space */
+    private static final String SPACE = " ";
+    /** The field the books are filtered by. */
+    private NumericField field;
+    /** The smallest value to be included. */
+    private double min;
+    /** The largest value to be included. */
+    private double max;
+
+    /**
+     * Create the range command and initialise it with
+     * the given command argument.
+     *
+     * @param argumentInput argument input as expected to be RATING or PAGES followed by the lower and upper bound.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException     if any of the given parameters are null.
+     */
+    public RangeCmd(String argumentInput) {
+        super(CommandType.RANGE, argumentInput);
+    }
+
+    /**
+     * Check the validity of the argument input and parse the field and bounds in.
+     *
+     * @param argumentInput argument input which expected to be RATING or PAGES followed by two numbers.
+     * @return true if the field is known and the bounds are numbers with the lower one first.
+     * @throws NullPointerException if the argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+        String[] arguments = argumentInput.split(SPACE);
+        if (arguments.length != 3) {
+            return false;
+        }
+        field = NumericField.parse(arguments[0]);
+        try {
+            min = Double.parseDouble(arguments[1]);
+            max = Double.parseDouble(arguments[2]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return field != null && min <= max;
+    }
+
+    /**
+     * Print the books with a value of the field within the bounds, lowest first.
+     *
+     * @param data book data to be filtered.
+     * @param out sink the books are printed to.
+     * @throws NullPointerException if the library data is null.
+     */
+    @Override
+    public void execute(LibraryData data, OutputSink out) {
+        Objects.requireNonNull(data,"The data shouldn't be null.");
+        List<BookEntry> books = data.getBooksInRange(field, min, max);
+        for (BookEntry book : books) {
+            out.println(book.getTitle() + " (" + field.describe(book) + ")");
+        }
+        if (books.isEmpty()) {
+            out.println("No books found with " + field + " between " + format(min) + " and " + format(max));
+        }
+    }
+
+    private static String format(double bound) {
+        return bound == Math.rint(bound) && !Double.isInfinite(bound) ? Long.toString((long) bound) : Double.toString(bound);
+    }
+
+    /**
+     * Filtering only reads the loaded book entries.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
+}
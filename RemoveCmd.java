@@ -1,5 +1,3 @@
-import java.util.Iterator;
-import java.util.List;
 import java.util.Objects;
 
 public class RemoveCmd extends LibraryCommand {
@@ -10,9 +8,9 @@ public class RemoveCmd extends LibraryCommand {
     /** String that represent space */
     private static final String SPACE = " ";
     /** The remove type that user inputs, should be either TITLE or AUTHOR.*/
-    private static String removeType;
+    private String removeType;
     /** The keyword inputted by user that remove those from the library data if contained.*/
-    private static String keyword;
+    private String keyword;
     /**
      * Create the remove command and initialise it with
      * the given command argument.
@@ -54,63 +52,44 @@ public class RemoveCmd extends LibraryCommand {
      * Check the remove type that has parsed in then remove the corresponding one
      *
      * @param data book data to be considered for command execution.
+     * @param out sink the removal result is printed to.
      * @throws NullPointerException if the book data input is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, OutputSink out) {
         Objects.requireNonNull(data,"The data shouldn't be null.");
-        List<BookEntry> books = data.getBookData();
         if (removeType.equals(TITLE)){
-            removeTitle(books,keyword);
+            removeTitle(data,keyword,out);
         }
         else if(removeType.equals(AUTHOR)){
-            removeAuthor(books,keyword);
+            removeAuthor(data,keyword,out);
         }
     }
 
     /**
-     * Iterate through the book data and remove them if their title are equals to the keyword.
-     * @param books the list of books that iterate from
+     * Remove the first book whose title are equals to the keyword by looking it up in the library data.
+     * @param data the library data that removed from
      * @param keyword the keyword that remove if the title are equals to
+     * @param out sink the removal result is printed to
      */
-    private void removeTitle(List<BookEntry> books, String keyword){
-        Iterator<BookEntry> booksIterator = books.iterator();
-        boolean found = false;
-        while (booksIterator.hasNext()){
-            BookEntry book = booksIterator.next();
-            String title = book.getTitle();
-            if (title.equals(keyword)){
-                booksIterator.remove();
-                found = true;
-                break;
-            }
-        }
+    private void removeTitle(LibraryData data, String keyword, OutputSink out){
+        boolean found = data.removeTitle(keyword);
         if (found) {
-            System.out.println(keyword + ": removed successfully.");
+            out.println(keyword + ": removed successfully.");
         }
         else{
-            System.out.println(keyword + ": not found.");
+            out.println(keyword + ": not found.");
         }
     }
 
     /**
-     * Iterate through the book data and remove them if one of their authors are equals to the keyword.
-     * @param books the list of books that iterate from
+     * Remove the books from the book data if one of their authors are equals to the keyword.
+     * @param data the library data that removed from
      * @param keyword the keyword that remove if one of the authors are equal
+     * @param out sink the removal result is printed to
      */
-    private void removeAuthor(List<BookEntry> books, String keyword){
-        Iterator<BookEntry> booksIterator = books.iterator();
-        int count = 0;
-        while (booksIterator.hasNext()){
-            BookEntry book = booksIterator.next();
-            String[] authors = book.getAuthors();
-            for (String author:authors){
-                if (author.equals(keyword)){
-                    booksIterator.remove();
-                    count++;
-                }
-            }
-        }
-        System.out.println(count +" books removed for author: " + keyword);
+    private void removeAuthor(LibraryData data, String keyword, OutputSink out){
+        int count = data.removeAuthor(keyword);
+        out.println(count +" books removed for author: " + keyword);
     }
 }
@@ -0,0 +1,175 @@
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of the output lines of queries, valid for one version of the library data.
+ *
+ * Every result is stored with the library version it was computed for and is only
+ * returned for the same version, so any change to the library invalidates all
+ * results at once without visiting them. The cache is bounded by the estimated
+ * memory of the stored lines and drops the least recently used results first.
+ * Results larger than a MAX_ENTRY_SHARE of the capacity are not stored, so a
+ * single huge listing can't push out all other results.
+ *
+ * The cache is thread-safe.
+ */
+public class ResultCache {
+
+    /** Estimated bytes needed for a line besides its characters. */
+    private static final int LINE_OVERHEAD = 48;
+    /** Largest share of the capacity a single result may take, as divisor. */
+    private static final int MAX_ENTRY_SHARE = 8;
+
+    /** Stored results by query, least recently used first. */
+    private final LinkedHashMap<String, Result> results;
+    /** Largest estimated number of bytes of all stored results. */
+    private long capacity;
+    /** Estimated number of bytes of all stored results. */
+    private long size;
+    /** Number of lookups which found a valid result. */
+    private long hits;
+    /** Number of lookups which found no valid result. */
+    private long misses;
+
+    /** Result of a query computed for a library version. */
+    private static final class Result {
+        final long version;
+        final List<String> lines;
+        final long size;
+
+        Result(long version, List<String> lines, long size) {
+            this.version = version;
+            this.lines = lines;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Create a new and empty cache.
+     * @param capacity largest estimated number of bytes of all stored results, 0 to store nothing
+     * @throws IllegalArgumentException if the given capacity is negative
+     */
+    public ResultCache(long capacity) {
+        results = new LinkedHashMap<>(16, 0.75f, true);
+        setCapacity(capacity);
+    }
+
+    /**
+     * Change the capacity of the cache, dropping results as needed.
+     * @param capacity largest estimated number of bytes of all stored results, 0 to store nothing
+     * @throws IllegalArgumentException if the given capacity is negative
+     */
+    public synchronized void setCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Given capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        evict();
+    }
+
+    /**
+     * Get the largest estimated number of bytes of a result that is stored.
+     * @return largest size of a single result
+     */
+    public synchronized long getMaxResultSize() {
+        return capacity / MAX_ENTRY_SHARE;
+    }
+
+    /**
+     * Get the stored result of a query.
+     * @param query query the result belongs to
+     * @param version current version of the library data
+     * @return output lines of the query or null if there is no result for the given version
+     * @throws NullPointerException if the given query is null
+     */
+    public synchronized List<String> get(String query, long version) {
+        Objects.requireNonNull(query, "Given query must not be null.");
+        Result result = results.get(query);
+        if (result == null || result.version != version) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return result.lines;
+    }
+
+    /**
+     * Store the result of a query, unless it is too large.
+     * @param query query the result belongs to
+     * @param version version of the library data the result was computed for
+     * @param lines output lines of the query
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public synchronized void put(String query, long version, List<String> lines) {
+        Objects.requireNonNull(query, "Given query must not be null.");
+        Objects.requireNonNull(lines, "Given lines must not be null.");
+        long resultSize = getSize(lines);
+        Result replaced = results.remove(query);
+        if (replaced != null) {
+            size -= replaced.size;
+        }
+        if (resultSize > getMaxResultSize()) {
+            return;
+        }
+        results.put(query, new Result(version, Collections.unmodifiableList(lines), resultSize));
+        size += resultSize;
+        evict();
+    }
+
+    /**
+     * Estimate the memory needed for the given output lines.
+     * @param lines output lines of a query
+     * @return estimated number of bytes
+     */
+    public static long getSize(List<String> lines) {
+        long bytes = 0;
+        for (String line : lines) {
+            bytes += getSize(line);
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimate the memory needed for one output line.
+     * @param line output line of a query
+     * @return estimated number of bytes
+     */
+    public static long getSize(String line) {
+        return LINE_OVERHEAD + line.length();
+    }
+
+    /** Remove all stored results. */
+    public synchronized void clear() {
+        results.clear();
+        size = 0;
+    }
+
+    /**
+     * Get the number of lookups which found a valid result.
+     * @return number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups which found no valid result.
+     * @return number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** Drop the least recently used results until the stored results fit the capacity. */
+    private void evict() {
+        Iterator<Map.Entry<String, Result>> iterator = results.entrySet().iterator();
+        while (size > capacity && iterator.hasNext()) {
+            size -= iterator.next().getValue().size;
+            iterator.remove();
+        }
+    }
+}
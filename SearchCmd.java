@@ -3,9 +3,9 @@ import java.util.Objects;
 
 public class SearchCmd extends LibraryCommand {
     /** A string that represent a space */
-    private static String SPACE = " ";
+    private static final String SPACE = " ";
     /** The keyword that user want to find.*/
-    private static String searchWord;
+    private String searchWord;
     /**
      * Create the Search command and initialise it with
      * the given command argument.
@@ -39,33 +39,37 @@ public class SearchCmd extends LibraryCommand {
      * print the book title if contained.
      *
      * @param data book data to be considered for searching.
+     * @param out sink the matching titles are printed to.
      * @throws NullPointerException if the library data is null.
      */
     @Override
-    public void execute(LibraryData data) {
+    public void execute(LibraryData data, OutputSink out) {
         Objects.requireNonNull(data,"The data shouldn't be null.");
-        bookSearching(data);
+        bookSearching(data, out);
     }
 
     /**
-     * A helper function that iterate and search through the library data.
+     * A helper function that looks up the keyword in the title index of the library data.
      *
      * @param data the library data that searched
+     * @param out sink the matching titles are printed to
      */
-    private void bookSearching(LibraryData data) {
-        boolean found = false;
-        String searchWordToLower = searchWord.toLowerCase();
-        List<BookEntry> books = data.getBookData();
+    private void bookSearching(LibraryData data, OutputSink out) {
+        List<BookEntry> books = data.searchTitles(searchWord);
         for (BookEntry book:books){
-            String bookTitle = book.getTitle();
-            String bookTitleToLower = bookTitle.toLowerCase();
-            if (bookTitleToLower.contains(searchWordToLower)){
-                found = true;
-                System.out.println(bookTitle);
-            }
+            out.println(book.getTitle());
         }
-        if (!found){
-            System.out.println("No hits found for search term: " + searchWord);
+        if (books.isEmpty()){
+            out.println("No hits found for search term: " + searchWord);
         }
     }
+
+    /**
+     * Searching only reads the titles of the loaded book entries.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
 }
@@ -0,0 +1,122 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Static helpers for writing and reading the fields of a library snapshot.
+ *
+ * Numbers are written big endian as by DataOutputStream and read from a ByteBuffer,
+ * usually a memory mapping of the snapshot file. Strings are written as UTF-8 bytes
+ * prefixed with their length. Sorted id lists are written as their size followed by
+ * the gaps between consecutive ids as variable length integers.
+ */
+public final class SnapshotIO {
+
+    /** Not to be used. */
+    private SnapshotIO() {
+        throw new UnsupportedOperationException("This constructor should never be used.");
+    }
+
+    /**
+     * Write a length prefixed UTF-8 string.
+     * @param out stream to write to
+     * @param value string to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a length prefixed UTF-8 string.
+     * @param in buffer to read from
+     * @return the string read
+     * @throws IOException if the buffer does not contain a complete string
+     */
+    public static String readString(ByteBuffer in) throws IOException {
+        int length = readLength(in);
+        if (length > in.remaining()) {
+            throw new IOException("Snapshot string exceeds the snapshot size.");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a list of ids sorted in ascending order.
+     * @param out stream to write to
+     * @param ids sorted ids to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeIds(DataOutputStream out, IntList ids) throws IOException {
+        out.writeInt(ids.size());
+        int previous = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            writeVarInt(out, ids.get(i) - previous);
+            previous = ids.get(i);
+        }
+    }
+
+    /**
+     * Read a list of ids written with writeIds.
+     * @param in buffer to read from
+     * @return the sorted ids read
+     * @throws IOException if the buffer does not contain a complete id list
+     */
+    public static IntList readIds(ByteBuffer in) throws IOException {
+        int size = readLength(in);
+        IntList ids = new IntList(size);
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += readVarInt(in);
+            ids.add(previous);
+        }
+        return ids;
+    }
+
+    /**
+     * Read a non negative length or count.
+     * @param in buffer to read from
+     * @return the length read
+     * @throws IOException if the buffer ends or the length is negative
+     */
+    public static int readLength(ByteBuffer in) throws IOException {
+        try {
+            int length = in.getInt();
+            if (length < 0) {
+                throw new IOException("Snapshot contains a negative length: " + length);
+            }
+            return length;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot ends unexpectedly.", e);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Snapshot ends unexpectedly.");
+            }
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Snapshot contains a malformed number.");
+    }
+}
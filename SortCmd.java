@@ -0,0 +1,79 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sort command printing all book entries sorted by rating or page count.
+ */
+public class SortCmd extends LibraryCommand {
+    /** A string that represent space */
+    private static final String SPACE = " ";
+    /** A string that represent ascending order. */
+    private static final String ASC = "ASC";
+    /** A string that represent descending order. */
+    private static final String DESC = "DESC";
+    /** The field the books are sorted by. */
+    private NumericField field;
+    /** Whether the highest values are printed first. */
+    private boolean descending;
+
+    /**
+     * Create the sort command and initialise it with
+     * the given command argument.
+     *
+     * @param argumentInput argument input as expected to be RATING or PAGES, optionally followed by ASC or DESC.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException     if any of the given parameters are null.
+     */
+    public SortCmd(String argumentInput) {
+        super(CommandType.SORT, argumentInput);
+    }
+
+    /**
+     * Check the validity of the argument input and parse the field and order in.
+     *
+     * @param argumentInput argument input which expected to be RATING or PAGES, optionally followed by ASC or DESC.
+     * @return true if the field and the order are known.
+     * @throws NullPointerException if the argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+        String[] arguments = argumentInput.split(SPACE);
+        if (arguments.length > 2) {
+            return false;
+        }
+        field = NumericField.parse(arguments[0]);
+        descending = arguments.length == 2 && arguments[1].equals(DESC);
+        return field != null && (arguments.length == 1 || descending || arguments[1].equals(ASC));
+    }
+
+    /**
+     * Print all books sorted by the field, ascending unless DESC was given.
+     *
+     * @param data book data to be sorted.
+     * @param out sink the books are printed to.
+     * @throws NullPointerException if the library data is null.
+     */
+    @Override
+    public void execute(LibraryData data, OutputSink out) {
+        Objects.requireNonNull(data,"The data shouldn't be null.");
+        List<BookEntry> books = data.getBooksSortedBy(field, descending);
+        if (books.isEmpty()) {
+            out.println("The library has no book entries.");
+            return;
+        }
+        out.println(books.size() + " books sorted by " + field + ":");
+        for (BookEntry book : books) {
+            out.println(book.getTitle() + " (" + field.describe(book) + ")");
+        }
+    }
+
+    /**
+     * Sorting only reads the loaded book entries.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Index keeping the ids of book entries sorted by title, as printed by GROUP TITLE.
+ *
+ * Titles are compared ignoring case, with titles starting with a digit placed after
+ * all other titles. The collation key of every distinct title is computed once when
+ * the title is added, so visiting all entries in title order is a linear walk without
+ * any comparisons or allocations per entry. Entries with the same title keep the order
+ * they were added in.
+ *
+ * Ids are expected to be added in ascending order. Ids of removed entries are not taken
+ * out of the index, they have to be skipped by the caller.
+ */
+public class SortedTitleIndex {
+
+    /** Prefix of the collation keys of titles starting with a digit, sorting them last. */
+    private static final char DIGIT_PREFIX = '1';
+    /** Prefix of the collation keys of all other titles. */
+    private static final char OTHER_PREFIX = '0';
+
+    /** Ids of the entries per collation key, in title order. */
+    private final TreeMap<String, IntList> postings;
+
+    /** Create a new and empty sorted title index. */
+    public SortedTitleIndex() {
+        postings = new TreeMap<>();
+    }
+
+    /**
+     * Add the title of a book entry to the index.
+     * @param id id of the book entry, greater than all ids added before
+     * @param title title of the book entry
+     */
+    public void add(int id, String title) {
+        postings.computeIfAbsent(getCollationKey(title), key -> new IntList()).add(id);
+    }
+
+    /**
+     * Visit the ids of all indexed entries in title order.
+     * @param visitor consumer called with every id, including ids of removed entries
+     */
+    public void forEach(IntConsumer visitor) {
+        for (IntList ids : postings.values()) {
+            for (int i = 0; i < ids.size(); i++) {
+                visitor.accept(ids.get(i));
+            }
+        }
+    }
+
+    /** Remove all titles from the index. */
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Get the key titles are sorted by: the lowercased title, prefixed so that
+     * titles starting with a digit come after all other titles.
+     * @param title title of a book entry
+     * @return collation key of the title
+     */
+    private static String getCollationKey(String title) {
+        String lowerCaseTitle = title.toLowerCase();
+        boolean leadingDigit = !lowerCaseTitle.isEmpty() && Character.isDigit(lowerCaseTitle.charAt(0));
+        return (leadingDigit ? DIGIT_PREFIX : OTHER_PREFIX) + lowerCaseTitle;
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.Objects;
+
+/**
+ * Stats command printing the execution metrics of all commands
+ * executed so far, or resetting them.
+ */
+public class StatsCmd extends LibraryCommand {
+
+    /** Argument resetting the metrics instead of printing them. */
+    private static final String RESET = "RESET";
+
+    /** Whether the metrics are to be reset. */
+    private boolean reset;
+
+    /**
+     * Create a stats command.
+     *
+     * @param argumentInput argument input is expected to be blank or RESET
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException if the given argumentInput is null.
+     */
+    public StatsCmd(String argumentInput) {
+        super(CommandType.STATS, argumentInput);
+    }
+
+    /**
+     * Check the validity of the argument input.
+     * @param argumentInput argument input which is expected to be blank or RESET.
+     * @return true if the argument input is valid.
+     * @throws NullPointerException if given argument are null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+        reset = argumentInput.equals(RESET);
+        return reset || argumentInput.isBlank();
+    }
+
+    /**
+     * Execute the stats command. This prints the count, latency percentiles and
+     * rows scanned and emitted per command type followed by the lookups in the
+     * result cache and the memory saved by sharing author names while loading,
+     * or resets the command metrics.
+     *
+     * @param data book data to be considered for command execution.
+     * @param out sink the metrics are written to.
+     */
+    @Override
+    public void execute(LibraryData data, OutputSink out) {
+        CommandMetrics metrics = CommandMetrics.getGlobal();
+        if (reset) {
+            metrics.reset();
+            out.println("Command metrics reset.");
+        } else {
+            metrics.report(out);
+            ResultCache cache = data.getResultCache();
+            out.println("Result cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses.");
+            out.println("Shared author names saved about " + data.getSharedAuthorBytes() / 1024 + " KB.");
+        }
+    }
+}
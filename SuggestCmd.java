@@ -0,0 +1,79 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Suggest command printing the best rated titles or authors starting with
+ * a typed prefix, fast enough to be run on every keystroke.
+ */
+public class SuggestCmd extends LibraryCommand {
+    /** A string that represent title. */
+    private static final String TITLE = "TITLE";
+    /** A string that represent author. */
+    private static final String AUTHOR = "AUTHOR";
+    /** A string that represent space */
+    private static final String SPACE = " ";
+    /** The completed field, which should be either TITLE or AUTHOR. */
+    private String suggestType;
+    /** The typed prefix, which may end with a space. */
+    private String prefix;
+
+    /**
+     * Create the suggest command and initialise it with
+     * the given command argument.
+     *
+     * @param argumentInput argument input as expected to be either TITLE or AUTHOR,
+     *                      optionally followed by a prefix.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException     if any of the given parameters are null.
+     */
+    public SuggestCmd(String argumentInput) {
+        super(CommandType.SUGGEST, argumentInput);
+    }
+
+    /**
+     * Check the validity of the argument input and parse it in.
+     *
+     * @param argumentInput argument input which expected to be either TITLE or AUTHOR,
+     *                      followed by a space and the prefix to be completed
+     * @return true if the field is valid
+     * @throws NullPointerException if the argument input is null
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+        int separator = argumentInput.indexOf(SPACE);
+        suggestType = separator == -1 ? argumentInput : argumentInput.substring(0, separator);
+        /* The prefix is kept as typed, a trailing space completes the next word only. */
+        prefix = separator == -1 ? "" : argumentInput.substring(separator + 1);
+        return suggestType.equals(TITLE) || suggestType.equals(AUTHOR);
+    }
+
+    /**
+     * Print the completions of the prefix, the best rated first.
+     *
+     * @param data book data to be completed from.
+     * @param out sink the completions are printed to.
+     * @throws NullPointerException if the library data is null.
+     */
+    @Override
+    public void execute(LibraryData data, OutputSink out) {
+        Objects.requireNonNull(data,"The data shouldn't be null.");
+        List<String> suggestions = suggestType.equals(TITLE)
+                ? data.suggestTitles(prefix) : data.suggestAuthors(prefix);
+        for (String suggestion : suggestions) {
+            out.println(suggestion);
+        }
+        if (suggestions.isEmpty()) {
+            out.println("No suggestions found for: " + prefix);
+        }
+    }
+
+    /**
+     * Suggesting only reads the prefix indexes of the library data.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from the trigrams of lowercased book titles to the ids of
+ * the book entries containing them.
+ *
+ * Every substring of at least three characters of a title contains only trigrams
+ * of that title, so the entries containing a search term are among the entries
+ * listed for all of the term's trigrams. The index only narrows down the
+ * candidates, which still have to be checked for the actual term.
+ *
+ * The number of distinct trigrams of every title is kept as well, so the trigram
+ * similarity of a term and a title can be computed from the postings alone.
+ *
+ * Ids are expected to be added in ascending order, so every posting list is sorted.
+ * Ids of removed entries are not taken out of the postings, they have to be skipped
+ * by the caller.
+ */
+public class TitleIndex {
+
+    /** Number of characters of an indexed gram. */
+    public static final int GRAM_LENGTH = 3;
+
+    /** Ids of the entries per trigram, the trigram is packed into a long. */
+    private final Map<Long, IntList> postings;
+    /** Number of distinct trigrams of the title per id, 0 beyond the used length. */
+    private int[] gramCounts;
+
+    /** Create a new and empty title index. */
+    public TitleIndex() {
+        postings = new HashMap<>();
+        gramCounts = new int[0];
+    }
+
+    /**
+     * Add the title of a book entry to the index.
+     * @param id id of the book entry, greater than all ids added before
+     * @param title title of the book entry
+     */
+    public void add(int id, String title) {
+        Set<Long> grams = getGrams(title.toLowerCase());
+        for (long gram : grams) {
+            postings.computeIfAbsent(gram, key -> new IntList()).add(id);
+        }
+        setGramCount(id, grams.size());
+    }
+
+    /** Remove all titles from the index. */
+    public void clear() {
+        postings.clear();
+        gramCounts = new int[0];
+    }
+
+    /**
+     * Write the index to a library snapshot.
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(postings.size());
+        for (Map.Entry<Long, IntList> posting : postings.entrySet()) {
+            out.writeLong(posting.getKey());
+            SnapshotIO.writeIds(out, posting.getValue());
+        }
+    }
+
+    /**
+     * Replace the content of the index with an index read from a library snapshot.
+     * @param in buffer to read from
+     * @throws IOException if the buffer does not contain a complete index
+     */
+    public void readFrom(ByteBuffer in) throws IOException {
+        clear();
+        int gramCount = SnapshotIO.readLength(in);
+        for (int i = 0; i < gramCount; i++) {
+            if (in.remaining() < Long.BYTES) {
+                throw new IOException("Snapshot ends unexpectedly.");
+            }
+            postings.put(in.getLong(), SnapshotIO.readIds(in));
+        }
+        /* Every title is listed once per distinct trigram, so the counts follow from the postings. */
+        for (IntList ids : postings.values()) {
+            for (int i = 0; i < ids.size(); i++) {
+                setGramCount(ids.get(i), getGramCount(ids.get(i)) + 1);
+            }
+        }
+    }
+
+    /**
+     * Get the ids of all entries which may contain the given term in their title.
+     * @param lowerCaseTerm lowercased search term of at least GRAM_LENGTH characters
+     * @return sorted ids of all entries containing every trigram of the term
+     * @throws IllegalArgumentException if the term is shorter than GRAM_LENGTH
+     */
+    public IntList getCandidates(String lowerCaseTerm) {
+        if (lowerCaseTerm.length() < GRAM_LENGTH) {
+            throw new IllegalArgumentException("Search term must have at least " + GRAM_LENGTH
+                    + " characters: " + lowerCaseTerm);
+        }
+        List<IntList> termPostings = new ArrayList<>();
+        for (long gram : getGrams(lowerCaseTerm)) {
+            IntList ids = postings.get(gram);
+            if (ids == null) {
+                return new IntList(0);
+            }
+            termPostings.add(ids);
+        }
+
+        /* Intersect starting with the shortest list to keep intermediate results small. */
+        termPostings.sort((first, second) -> Integer.compare(first.size(), second.size()));
+        IntList candidates = termPostings.get(0);
+        for (int i = 1; i < termPostings.size() && !candidates.isEmpty(); i++) {
+            candidates = candidates.intersect(termPostings.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Count for every entry sharing a trigram with the given term how many of the distinct
+     * trigrams of the term its title contains. The sorted postings of the term's trigrams
+     * are merged through a heap, so only the listed ids are visited and no titles are read.
+     * @param lowerCaseTerm lowercased search term
+     * @param counter receiver of the number of shared trigrams, called in ascending order of the ids
+     */
+    public void countSharedGrams(String lowerCaseTerm, SharedGramCounter counter) {
+        List<IntList> termPostings = new ArrayList<>();
+        for (long gram : getGrams(lowerCaseTerm)) {
+            IntList ids = postings.get(gram);
+            if (ids != null && !ids.isEmpty()) {
+                termPostings.add(ids);
+            }
+        }
+
+        /* Heap of posting numbers ordered by the id at their current position. */
+        int size = termPostings.size();
+        int[] heap = new int[size];
+        int[] positions = new int[size];
+        int[] heads = new int[size];
+        for (int i = 0; i < size; i++) {
+            heap[i] = i;
+            heads[i] = termPostings.get(i).get(0);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, size, i, heads);
+        }
+        while (size > 0) {
+            int id = heads[heap[0]];
+            int shared = 0;
+            /* Every title is listed once per distinct trigram, so each posting holding the id counts once. */
+            while (size > 0 && heads[heap[0]] == id) {
+                int posting = heap[0];
+                shared++;
+                if (++positions[posting] < termPostings.get(posting).size()) {
+                    heads[posting] = termPostings.get(posting).get(positions[posting]);
+                } else {
+                    heap[0] = heap[--size];
+                }
+                siftDown(heap, size, 0, heads);
+            }
+            counter.count(id, shared);
+        }
+    }
+
+    /**
+     * Move a heap element down until no child has a smaller key.
+     * @param heap heap of element numbers
+     * @param size number of elements in the heap
+     * @param index index of the element to be moved
+     * @param keys key of every element number
+     */
+    private static void siftDown(int[] heap, int size, int index, int[] keys) {
+        int element = heap[index];
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[heap[child]] >= keys[element]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = element;
+    }
+
+    /**
+     * Get the number of distinct trigrams of an indexed title.
+     * @param id id of the book entry
+     * @return number of trigrams of the title, 0 if the id has not been indexed
+     */
+    public int getGramCount(int id) {
+        return id < gramCounts.length ? gramCounts[id] : 0;
+    }
+
+    /**
+     * Get the number of distinct trigrams of the given text.
+     * @param text text to be split into trigrams
+     * @return number of distinct trigrams
+     */
+    public static int countGrams(String text) {
+        return getGrams(text).size();
+    }
+
+    private void setGramCount(int id, int count) {
+        if (id >= gramCounts.length) {
+            gramCounts = Arrays.copyOf(gramCounts, Math.max(id + 1, gramCounts.length + (gramCounts.length >> 1)));
+        }
+        gramCounts[id] = count;
+    }
+
+    /**
+     * Get the distinct trigrams of the given text, each packed into a long.
+     * @param text text to be split into trigrams
+     * @return distinct trigrams of the text
+     */
+    private static Set<Long> getGrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    /** Receiver of the number of trigrams the title of an entry shares with a search term. */
+    @FunctionalInterface
+    public interface SharedGramCounter {
+        /**
+         * Count the shared trigrams of an entry.
+         * @param id id of the book entry
+         * @param shared number of distinct trigrams of the term contained in the title, at least 1
+         */
+        void count(int id, int shared);
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Top command printing the book entries with the highest rating or page count.
+ */
+public class TopCmd extends LibraryCommand {
+    /** A string that represent space */
+    private static final String SPACE = " ";
+    /** The field the books are ranked by. */
+    private NumericField field;
+    /** The number of books to be printed. */
+    private int count;
+
+    /**
+     * Create the top command and initialise it with
+     * the given command argument.
+     *
+     * @param argumentInput argument input as expected to be RATING or PAGES followed by the number of books.
+     * @throws IllegalArgumentException if given arguments are invalid
+     * @throws NullPointerException     if any of the given parameters are null.
+     */
+    public TopCmd(String argumentInput) {
+        super(CommandType.TOP, argumentInput);
+    }
+
+    /**
+     * Check the validity of the argument input and parse the field and number of books in.
+     *
+     * @param argumentInput argument input which expected to be RATING or PAGES followed by a positive number.
+     * @return true if the field is known and the number is positive.
+     * @throws NullPointerException if the argument input is null.
+     */
+    @Override
+    protected boolean parseArguments(String argumentInput) {
+        Objects.requireNonNull(argumentInput, "Given input argument must not be null.");
+        String[] arguments = argumentInput.split(SPACE);
+        if (arguments.length != 2) {
+            return false;
+        }
+        field = NumericField.parse(arguments[0]);
+        try {
+            count = Integer.parseInt(arguments[1]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return field != null && count > 0;
+    }
+
+    /**
+     * Print the books with the highest values of the field, highest first.
+     *
+     * @param data book data to be ranked.
+     * @param out sink the books are printed to.
+     * @throws NullPointerException if the library data is null.
+     */
+    @Override
+    public void execute(LibraryData data, OutputSink out) {
+        Objects.requireNonNull(data,"The data shouldn't be null.");
+        List<BookEntry> books = data.getTopBooks(field, count);
+        if (books.isEmpty()) {
+            out.println("The library has no book entries.");
+        }
+        for (BookEntry book : books) {
+            out.println(book.getTitle() + " (" + field.describe(book) + ")");
+        }
+    }
+
+    /**
+     * Ranking only reads the loaded book entries.
+     * @return true
+     */
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
+}
@@ -0,0 +1,402 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log file recording every book entry added to or removed from a library,
+ * so changes made since the last snapshot survive a crash.
+ *
+ * Each record consists of its length, the record type, the fields of the book entry and
+ * a CRC32 checksum. Records are collected in memory and written by a background thread
+ * as a group commit: it writes all records collected so far, forces them to disk with a
+ * single call and then takes the records collected in the meantime. A writer appends its
+ * records, remembers the position after them and waits with awaitCommitted until the
+ * group covering that position is on disk, so a change is durable once that call returns.
+ * Writers arriving during a force share the next one, so the number of forces does not
+ * grow with the number of concurrent writers.
+ *
+ * Positions count all bytes ever appended to the log. They keep growing when the log
+ * is emptied by reset or rewritten by rewrite, so a writer can wait for its records
+ * while the file is replaced.
+ *
+ * Replaying a log only sets the presence of the logged entries, so replaying it on top
+ * of a snapshot taken after some of the logged changes gives the same library.
+ */
+public class WriteAheadLog implements MutationLog, Closeable {
+
+    /** Time in milliseconds the idle commit thread waits before looking for records again. */
+    private static final long COMMIT_INTERVAL_MILLIS = 20;
+    /** Record type of an added book entry. */
+    private static final byte ADDED = 1;
+    /** Record type of a removed book entry. */
+    private static final byte REMOVED = 2;
+
+    /** Path of the log file. */
+    private final Path logFile;
+    /** Log file, positioned at its end. Replaced by rewrite. */
+    private FileChannel channel;
+    /** Records not handed over to the commit thread yet. */
+    private ByteArrayOutputStream pending;
+    /** Number of bytes of all records written or pending. */
+    private long size;
+    /** Number of bytes of all records forced to disk. */
+    private long committedSize;
+    /** Number of bytes dropped from the log by reset and rewrite, the position of its start. */
+    private long droppedSize;
+    /** Thread writing and forcing the pending records to disk. */
+    private final Thread committer;
+    /** Whether the log has been closed. */
+    private boolean closed;
+    /** First error raised while committing, null if none occurred. */
+    private IOException failure;
+
+    /**
+     * Create a log appending to the given channel.
+     * @param logFile path of the log file
+     * @param channel log file positioned at the end of its last valid record
+     * @param size number of bytes of valid records
+     */
+    private WriteAheadLog(Path logFile, FileChannel channel, long size) {
+        this.logFile = logFile;
+        this.channel = channel;
+        this.size = size;
+        committedSize = size;
+        pending = new ByteArrayOutputStream();
+        closed = false;
+        committer = new Thread(this::commitLoop, "write-ahead-log-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Open the given log file, replay its records and start appending to it.
+     * A torn record at the end of the file, left behind by a crash while writing,
+     * is discarded. The file is created if it doesn't exist yet.
+     * @param logFile path of the log file
+     * @param replayTarget receiver of the records already in the log
+     * @param out sink a warning about discarded records is written to
+     * @return the opened log
+     * @throws IOException if the log file can't be read or written
+     * @throws NullPointerException if one of the given parameters is null
+     */
+    public static WriteAheadLog open(Path logFile, MutationLog replayTarget, OutputSink out) throws IOException {
+        Objects.requireNonNull(logFile, "Given log file must not be null.");
+        Objects.requireNonNull(replayTarget, "Given replay target must not be null.");
+        Objects.requireNonNull(out, "Given output sink must not be null.");
+        FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long validSize = replay(channel, replayTarget);
+            if (validSize < channel.size()) {
+                out.println("WARNING: Discarding incomplete records at the end of log: " + logFile);
+                channel.truncate(validSize);
+            }
+            channel.position(validSize);
+            return new WriteAheadLog(logFile, channel, validSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void added(BookEntry entry) {
+        append(ADDED, entry);
+    }
+
+    @Override
+    public void removed(BookEntry entry) {
+        append(REMOVED, entry);
+    }
+
+    /**
+     * Get the number of bytes of all records in the log.
+     * @return size of the log in bytes
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Get the position following the last record appended so far.
+     * @return number of bytes ever appended to the log
+     */
+    public synchronized long position() {
+        return droppedSize + size;
+    }
+
+    /**
+     * Wait until all records appended so far have been forced to disk.
+     * @throws IOException if committing the records failed
+     */
+    public synchronized void sync() throws IOException {
+        awaitCommitted(position());
+    }
+
+    /**
+     * Wait until the records before the given position have been forced to disk.
+     * Wakes up the commit thread, so the records are committed without waiting
+     * for the commit interval.
+     * @param position position returned by position after appending the records
+     * @throws IOException if committing the records failed
+     */
+    public synchronized void awaitCommitted(long position) throws IOException {
+        if (droppedSize + committedSize < position) {
+            /* Wake up the idle commit thread once, waiting writers are woken after every commit. */
+            notifyAll();
+        }
+        while (droppedSize + committedSize < position && failure == null && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the log to be committed.", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Remove all records from the log, after they have been made obsolete by a snapshot
+     * of the library. Records appended while resetting are not lost.
+     * @throws IOException if the log file can't be truncated
+     */
+    public synchronized void reset() throws IOException {
+        sync();
+        if (pending.size() == 0 && committedSize == size) {
+            channel.truncate(0);
+            channel.force(true);
+            droppedSize += size;
+            size = 0;
+            committedSize = 0;
+        }
+    }
+
+    /**
+     * Replace all records of the log with one added record per given entry. This keeps
+     * the log from growing without limit when no snapshot is taken. The new log is
+     * written next to the log file and moved in place once it is on disk, so a crash
+     * leaves either the old or the new log. No records may be appended meanwhile.
+     * @param entries all book entries of the library
+     * @throws IOException if the new log can't be written
+     */
+    public synchronized void rewrite(Iterable<BookEntry> entries) throws IOException {
+        sync();
+        Path tempFile = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        FileChannel rewritten = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long rewrittenSize = 0;
+        try {
+            /* The stream is only flushed, closing it would close the channel. */
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(rewritten)));
+            for (BookEntry entry : entries) {
+                rewrittenSize += writeRecord(out, ADDED, entry);
+            }
+            out.flush();
+            rewritten.force(true);
+            Files.move(tempFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            rewritten.close();
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        FileChannel replaced = channel;
+        channel = rewritten;
+        droppedSize += size;
+        size = rewrittenSize;
+        committedSize = rewrittenSize;
+        replaced.close();
+    }
+
+    /**
+     * Commit all pending records and close the log file.
+     * @throws IOException if committing the records or closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            sync();
+            closed = true;
+            notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Serialise a record into the pending records.
+     * @param type record type
+     * @param entry logged book entry
+     */
+    private synchronized void append(byte type, BookEntry entry) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log has been closed.");
+        }
+        try {
+            size += writeRecord(new DataOutputStream(pending), type, entry);
+        } catch (IOException e) {
+            /* Writing to byte array streams does not fail. */
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serialise a record into the given stream.
+     * @param out stream the record is written to
+     * @param type record type
+     * @param entry logged book entry
+     * @return number of bytes written
+     * @throws IOException if writing to the stream fails
+     */
+    private static int writeRecord(DataOutputStream out, byte type, BookEntry entry) throws IOException {
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(recordBytes);
+        record.writeByte(type);
+        SnapshotIO.writeString(record, entry.getTitle());
+        record.writeInt(entry.getAuthors().length);
+        for (String author : entry.getAuthors()) {
+            SnapshotIO.writeString(record, author);
+        }
+        record.writeFloat(entry.getRating());
+        SnapshotIO.writeString(record, entry.getISBN());
+        record.writeInt(entry.getPages());
+
+        CRC32 checksum = new CRC32();
+        checksum.update(recordBytes.toByteArray());
+        out.writeInt(recordBytes.size());
+        recordBytes.writeTo(out);
+        out.writeInt((int) checksum.getValue());
+        return Integer.BYTES + recordBytes.size() + Integer.BYTES;
+    }
+
+    /**
+     * Write and force the pending records as one group until the log is closed. The next
+     * group is taken right after a force, so writers waiting meanwhile share one force.
+     * Without waiting writers, pending records are committed once per commit interval.
+     */
+    private void commitLoop() {
+        while (true) {
+            ByteArrayOutputStream records;
+            long recordsEnd;
+            FileChannel target;
+            synchronized (this) {
+                if (pending.size() == 0 && closed) {
+                    return;
+                }
+                if (pending.size() == 0) {
+                    try {
+                        wait(COMMIT_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    continue;
+                }
+                records = pending;
+                recordsEnd = size;
+                target = channel;
+                pending = new ByteArrayOutputStream();
+            }
+
+            /* Reset and rewrite wait for this group, so the channel is not replaced meanwhile. */
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                target.force(false);
+                synchronized (this) {
+                    committedSize = recordsEnd;
+                    notifyAll();
+                }
+            } catch (IOException e) {
+                /* The failure is thrown to every writer waiting for its records. */
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hand all valid records of the log over to the given target.
+     * @param channel log file positioned at its start
+     * @param target receiver of the records
+     * @return number of bytes of valid records at the start of the log
+     * @throws IOException if the log file can't be read
+     */
+    private static long replay(FileChannel channel, MutationLog target) throws IOException {
+        long validSize = 0;
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+        DataInputStream records = new DataInputStream(in);
+        while (true) {
+            byte[] recordBytes;
+            int storedChecksum;
+            try {
+                int length = records.readInt();
+                if (length <= 0 || length > channel.size() - validSize) {
+                    return validSize;
+                }
+                recordBytes = new byte[length];
+                records.readFully(recordBytes);
+                storedChecksum = records.readInt();
+            } catch (EOFException e) {
+                return validSize;
+            }
+
+            CRC32 checksum = new CRC32();
+            checksum.update(recordBytes);
+            if ((int) checksum.getValue() != storedChecksum) {
+                return validSize;
+            }
+            ByteBuffer record = ByteBuffer.wrap(recordBytes);
+            byte type = record.get();
+            BookEntry entry = readEntry(record);
+            if (type == ADDED) {
+                target.added(entry);
+            } else if (type == REMOVED) {
+                target.removed(entry);
+            } else {
+                return validSize;
+            }
+            validSize += Integer.BYTES + recordBytes.length + Integer.BYTES;
+        }
+    }
+
+    private static BookEntry readEntry(ByteBuffer record) throws IOException {
+        String title = SnapshotIO.readString(record);
+        String[] authors = new String[SnapshotIO.readLength(record)];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = SnapshotIO.readString(record);
+        }
+        float rating = record.getFloat();
+        String ISBN = SnapshotIO.readString(record);
+        int pages = record.getInt();
+        return new BookEntry(title, authors, rating, ISBN, pages);
+    }
+}
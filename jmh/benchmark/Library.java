@@ -0,0 +1,292 @@
+package benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Access to the library classes for the benchmarks.
+ *
+ * The library lives in the default package. JMH does not accept benchmark classes
+ * there, and classes in a named package can't import it, so the benchmarks reach the
+ * library classes by name through method handles looked up once. Library objects are
+ * passed around as Object. Every call costs far less than the operations measured.
+ */
+final class Library {
+
+    private static final MethodHandle NEW_OBJECT_STORE;
+    private static final MethodHandle NEW_COLUMNAR_STORE;
+    private static final MethodHandle NEW_LIBRARY;
+    private static final MethodHandle SET_PARSE_WORKERS;
+    private static final MethodHandle GET_RESULT_CACHE;
+    private static final MethodHandle SET_CACHE_CAPACITY;
+    private static final MethodHandle LOAD_DATA;
+    private static final MethodHandle SAVE_SNAPSHOT;
+    private static final MethodHandle LOAD_SNAPSHOT;
+    private static final MethodHandle GET_BOOK_DATA;
+    private static final MethodHandle REMOVE_ENTRIES;
+    private static final MethodHandle GET_PAGES;
+    private static final MethodHandle NEW_INTERPRETER;
+    private static final MethodHandle PARSE_COMMAND;
+    private static final MethodHandle EXECUTE_COMMAND;
+    private static final MethodHandle NEW_LOADER;
+    private static final MethodHandle GET_BATCH_SIZE;
+    private static final MethodHandle STREAM_FILE_CONTENT;
+    private static final MethodHandle CLOSE_LOADER;
+    private static final MethodHandle GENERATE;
+    private static final MethodHandle PARSE_ROWS;
+    /** Sink dropping all command output. */
+    private static final Object NULL_SINK;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            Class<?> bookStore = Class.forName("BookStore");
+            Class<?> libraryData = Class.forName("LibraryData");
+            Class<?> resultCache = Class.forName("ResultCache");
+            Class<?> bookEntry = Class.forName("BookEntry");
+            Class<?> outputSink = Class.forName("OutputSink");
+            Class<?> command = Class.forName("LibraryCommand");
+            Class<?> interpreter = Class.forName("CommandInterpreter");
+            Class<?> loader = Class.forName("LibraryFileLoader");
+            Class<?> generator = Class.forName("BookDataGenerator");
+
+            NEW_OBJECT_STORE = lookup.findConstructor(Class.forName("ObjectBookStore"),
+                    MethodType.methodType(void.class));
+            NEW_COLUMNAR_STORE = lookup.findConstructor(Class.forName("ColumnarBookStore"),
+                    MethodType.methodType(void.class));
+            NEW_LIBRARY = lookup.findConstructor(libraryData, MethodType.methodType(void.class, bookStore));
+            SET_PARSE_WORKERS = lookup.findVirtual(libraryData, "setParseWorkers",
+                    MethodType.methodType(void.class, int.class));
+            GET_RESULT_CACHE = lookup.findVirtual(libraryData, "getResultCache", MethodType.methodType(resultCache));
+            SET_CACHE_CAPACITY = lookup.findVirtual(resultCache, "setCapacity",
+                    MethodType.methodType(void.class, long.class));
+            LOAD_DATA = lookup.findVirtual(libraryData, "loadData",
+                    MethodType.methodType(boolean.class, Path.class, outputSink));
+            SAVE_SNAPSHOT = lookup.findVirtual(libraryData, "saveSnapshot",
+                    MethodType.methodType(boolean.class, Path.class));
+            LOAD_SNAPSHOT = lookup.findStatic(libraryData, "loadSnapshot",
+                    MethodType.methodType(libraryData, Path.class, bookStore));
+            GET_BOOK_DATA = lookup.findVirtual(libraryData, "getBookData", MethodType.methodType(List.class));
+            REMOVE_ENTRIES = lookup.findVirtual(libraryData, "removeEntries",
+                    MethodType.methodType(int.class, Predicate.class));
+            GET_PAGES = lookup.findVirtual(bookEntry, "getPages", MethodType.methodType(int.class));
+            NEW_INTERPRETER = lookup.findConstructor(interpreter, MethodType.methodType(void.class));
+            PARSE_COMMAND = lookup.findVirtual(interpreter, "parseCommand",
+                    MethodType.methodType(command, String.class));
+            EXECUTE_COMMAND = lookup.findVirtual(interpreter, "executeCommand",
+                    MethodType.methodType(void.class, command, libraryData, outputSink));
+            NEW_LOADER = lookup.findConstructor(loader, MethodType.methodType(void.class, int.class));
+            GET_BATCH_SIZE = lookup.findVirtual(loader, "getBatchSize", MethodType.methodType(int.class));
+            STREAM_FILE_CONTENT = lookup.findVirtual(loader, "streamFileContent",
+                    MethodType.methodType(boolean.class, Path.class, int.class, Consumer.class));
+            CLOSE_LOADER = lookup.findVirtual(loader, "close", MethodType.methodType(void.class));
+            GENERATE = lookup.findStatic(generator, "generate",
+                    MethodType.methodType(void.class, Path.class, long.class, long.class));
+            PARSE_ROWS = lookup.findStatic(generator, "parseRows", MethodType.methodType(long.class, String.class));
+            NULL_SINK = Class.forName("NullOutputSink").getField("INSTANCE").get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Library() {
+    }
+
+    /**
+     * Write a book data file generated by BookDataGenerator.
+     * @param file path of the file to be written
+     * @param rows number of rows, such as 10k, 1M or 10M
+     */
+    static void generate(Path file, String rows) {
+        try {
+            GENERATE.invoke(file, (long) PARSE_ROWS.invoke(rows), 0L);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Create empty library data without a result cache.
+     * @param columnar whether the columnar book store is used
+     * @param parseWorkers number of threads used for parsing
+     * @return the new LibraryData
+     */
+    static Object newLibrary(boolean columnar, int parseWorkers) {
+        try {
+            Object data = NEW_LIBRARY.invoke(newStore(columnar));
+            SET_PARSE_WORKERS.invoke(data, parseWorkers);
+            setCacheCapacity(data, 0);
+            return data;
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Read library data from a snapshot, without a result cache.
+     * @param file snapshot written by saveSnapshot
+     * @param columnar whether the columnar book store is used
+     * @return the LibraryData read
+     */
+    static Object loadSnapshot(Path file, boolean columnar) {
+        try {
+            Object data = LOAD_SNAPSHOT.invoke(file, newStore(columnar));
+            if (data == null) {
+                throw new IllegalStateException("Benchmark snapshot could not be read: " + file);
+            }
+            setCacheCapacity(data, 0);
+            return data;
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Load a book data file into the given library, dropping the load report.
+     * @return true if loading was successful
+     */
+    static boolean loadData(Object data, Path file) {
+        try {
+            return (boolean) LOAD_DATA.invoke(data, file, NULL_SINK);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Save the given library to a snapshot file.
+     * @return true if the snapshot has been written
+     */
+    static boolean saveSnapshot(Object data, Path file) {
+        try {
+            return (boolean) SAVE_SNAPSHOT.invoke(data, file);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Set the capacity of the result cache of the given library.
+     * @param capacity capacity in bytes, 0 to not cache results
+     */
+    static void setCacheCapacity(Object data, long capacity) {
+        try {
+            SET_CACHE_CAPACITY.invoke(GET_RESULT_CACHE.invoke(data), capacity);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Get the number of book entries in the given library.
+     * @return number of entries
+     */
+    static int size(Object data) {
+        try {
+            return ((List<?>) GET_BOOK_DATA.invoke(data)).size();
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Remove all book entries whose page number is a multiple of the given modulus.
+     * @return number of entries removed
+     */
+    static int removeEntriesWithPages(Object data, int modulus) {
+        Predicate<Object> condition = book -> {
+            try {
+                return (int) GET_PAGES.invoke(book) % modulus == 0;
+            } catch (Throwable e) {
+                throw propagate(e);
+            }
+        };
+        try {
+            return (int) REMOVE_ENTRIES.invoke(data, condition);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Create a command interpreter.
+     * @return the new CommandInterpreter
+     */
+    static Object newInterpreter() {
+        try {
+            return NEW_INTERPRETER.invoke();
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Parse a command with the given interpreter.
+     * @return the LibraryCommand parsed
+     * @throws IllegalArgumentException if the command is invalid
+     */
+    static Object parseCommand(Object interpreter, String line) {
+        Object command;
+        try {
+            command = PARSE_COMMAND.invoke(interpreter, line);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+        if (command == null) {
+            throw new IllegalArgumentException("Invalid benchmark command: " + line);
+        }
+        return command;
+    }
+
+    /** Execute a parsed command on the given library, dropping its output. */
+    static void execute(Object interpreter, Object command, Object data) {
+        try {
+            EXECUTE_COMMAND.invoke(interpreter, command, data, NULL_SINK);
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Parse a book data file in batches without adding the entries to a library.
+     * @return number of entries parsed
+     */
+    static long parse(Path file, int parseWorkers) {
+        long[] parsed = {0};
+        Consumer<List<?>> counter = batch -> parsed[0] += batch.size();
+        try {
+            Object loader = NEW_LOADER.invoke(parseWorkers);
+            try {
+                STREAM_FILE_CONTENT.invoke(loader, file, (int) GET_BATCH_SIZE.invoke(loader), counter);
+            } finally {
+                CLOSE_LOADER.invoke(loader);
+            }
+        } catch (Throwable e) {
+            throw propagate(e);
+        }
+        return parsed[0];
+    }
+
+    private static Object newStore(boolean columnar) throws Throwable {
+        return columnar ? NEW_COLUMNAR_STORE.invoke() : NEW_OBJECT_STORE.invoke();
+    }
+
+    /**
+     * Rethrow an unchecked exception thrown through a method handle as it is and
+     * wrap a checked one, which the library methods called here do not declare.
+     */
+    private static RuntimeException propagate(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
@@ -0,0 +1,267 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of loading, searching, grouping and removing book entries on
+ * synthetic book data generated by BookDataGenerator with 10k, 1M and 10M rows.
+ *
+ * Build with mvn package and run with java -jar target/benchmarks.jar -prof gc,
+ * which reports the bytes allocated per operation (gc.alloc.rate.norm) and the
+ * garbage collections next to the time per operation. Add -p rows=10k to run a
+ * single size or a regular expression such as LibraryBenchmark.search to run
+ * some of the benchmarks. Every benchmark runs in a JVM of its own.
+ *
+ * Benchmarks changing the library (load, removeAuthor, removeBulk) run once per
+ * iteration on a fresh library prepared before the iteration, all others run
+ * repeatedly on one loaded library. Command output goes to a NullOutputSink, so
+ * only the cost of the commands themselves is measured. Query results are not
+ * cached, except in searchCached. Parsing uses a single worker thread by default.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class LibraryBenchmark {
+
+    /** Search terms run by the search benchmarks, from many hits to none. */
+    private static final String[] SEARCH_TERMS = {"of", "love", "shadow", "empire", "12", "zebra"};
+    /** Authors removed by the author removal benchmark. */
+    private static final String[] REMOVED_AUTHORS = {"Ada Achebe", "Leo Tolstoy", "Mary Shelley", "Toni Morrison"};
+    /** Modulus of the page numbers of the entries removed by the bulk removal benchmark. */
+    private static final int BULK_REMOVAL_MODULUS = 10;
+    /** Capacity of the result cache in the cached search benchmark. */
+    private static final long RESULT_CACHE_CAPACITY = 64L * 1024 * 1024;
+
+    /**
+     * Generated book data file, its snapshot and the library loaded from it,
+     * shared by all benchmarks of a run.
+     */
+    @State(Scope.Benchmark)
+    public static class BookData {
+
+        /** Number of generated rows. */
+        @Param({"10k", "1M", "10M"})
+        public String rows;
+        /** Book store used, object or columnar. */
+        @Param({"object", "columnar"})
+        public String store;
+        /** Number of threads used for parsing. */
+        @Param("1")
+        public int parseWorkers;
+
+        Path dataFile;
+        Path snapshotFile;
+        /** LibraryData with the generated book data loaded. */
+        Object library;
+        /** CommandInterpreter parsing and executing the benchmarked commands. */
+        Object interpreter;
+
+        /**
+         * Generate the book data file, load it and save its snapshot.
+         * @throws IOException if the temporary files can't be created
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            dataFile = Files.createTempFile("library-benchmark", ".csv");
+            snapshotFile = Files.createTempFile("library-benchmark", ".snapshot");
+            Library.generate(dataFile, rows);
+            library = newLibrary();
+            if (!Library.loadData(library, dataFile) || !Library.saveSnapshot(library, snapshotFile)) {
+                throw new IllegalStateException("Book data could not be loaded: " + dataFile);
+            }
+            interpreter = Library.newInterpreter();
+        }
+
+        /**
+         * Delete the temporary files.
+         * @throws IOException if a file can't be deleted
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(snapshotFile);
+        }
+
+        Object newLibrary() {
+            return Library.newLibrary(isColumnar(), parseWorkers);
+        }
+
+        Object loadSnapshot() {
+            return Library.loadSnapshot(snapshotFile, isColumnar());
+        }
+
+        Object parse(String command) {
+            return Library.parseCommand(interpreter, command);
+        }
+
+        void execute(Object command) {
+            Library.execute(interpreter, command, library);
+        }
+
+        private boolean isColumnar() {
+            return store.equals("columnar");
+        }
+    }
+
+    /** Empty library prepared before every iteration of the load benchmark. */
+    @State(Scope.Thread)
+    public static class EmptyLibrary {
+        Object library;
+
+        @Setup(Level.Iteration)
+        public void setUp(BookData books) {
+            library = books.newLibrary();
+        }
+    }
+
+    /** Library read from the snapshot before every iteration of the removal benchmarks. */
+    @State(Scope.Thread)
+    public static class LoadedLibrary {
+        Object library;
+
+        @Setup(Level.Iteration)
+        public void setUp(BookData books) {
+            library = books.loadSnapshot();
+        }
+    }
+
+    /** Parsed commands of the query benchmarks. */
+    @State(Scope.Benchmark)
+    public static class Commands {
+        Object list;
+        Object listLong;
+        Object groupTitle;
+        Object groupAuthor;
+        List<Object> searches;
+        /** SUGGEST commands for every prefix of the search terms, as typed key by key. */
+        List<Object> keystrokes;
+
+        @Setup(Level.Trial)
+        public void setUp(BookData books) {
+            list = books.parse("LIST");
+            listLong = books.parse("LIST long");
+            groupTitle = books.parse("GROUP TITLE");
+            groupAuthor = books.parse("GROUP AUTHOR");
+            searches = new ArrayList<>();
+            keystrokes = new ArrayList<>();
+            for (String term : SEARCH_TERMS) {
+                searches.add(books.parse("SEARCH " + term));
+                for (int length = 1; length <= term.length(); length++) {
+                    keystrokes.add(books.parse("SUGGEST TITLE " + term.substring(0, length)));
+                    keystrokes.add(books.parse("SUGGEST AUTHOR " + term.substring(0, length)));
+                }
+            }
+        }
+    }
+
+    /** Result cache enabled for the cached search benchmark only. */
+    @State(Scope.Benchmark)
+    public static class CachedResults {
+
+        @Setup(Level.Trial)
+        public void setUp(BookData books) {
+            Library.setCacheCapacity(books.library, RESULT_CACHE_CAPACITY);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown(BookData books) {
+            Library.setCacheCapacity(books.library, 0);
+        }
+    }
+
+    /** Parse the book data file in batches without adding the entries to a library. */
+    @Benchmark
+    public long parse(BookData books) {
+        return Library.parse(books.dataFile, books.parseWorkers);
+    }
+
+    /** Load the book data file into an empty library. */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int load(EmptyLibrary empty, BookData books) {
+        Library.loadData(empty.library, books.dataFile);
+        return Library.size(empty.library);
+    }
+
+    /** Merge the book data file into the library holding it already, so every entry is a duplicate. */
+    @Benchmark
+    public boolean dedup(BookData books) {
+        return Library.loadData(books.library, books.dataFile);
+    }
+
+    @Benchmark
+    public void list(BookData books, Commands commands) {
+        books.execute(commands.list);
+    }
+
+    @Benchmark
+    public void listLong(BookData books, Commands commands) {
+        books.execute(commands.listLong);
+    }
+
+    @Benchmark
+    public void search(BookData books, Commands commands) {
+        for (Object search : commands.searches) {
+            books.execute(search);
+        }
+    }
+
+    @Benchmark
+    public void searchCached(BookData books, Commands commands, CachedResults cache) {
+        for (Object search : commands.searches) {
+            books.execute(search);
+        }
+    }
+
+    @Benchmark
+    public void suggest(BookData books, Commands commands) {
+        for (Object suggest : commands.keystrokes) {
+            books.execute(suggest);
+        }
+    }
+
+    @Benchmark
+    public void groupTitle(BookData books, Commands commands) {
+        books.execute(commands.groupTitle);
+    }
+
+    @Benchmark
+    public void groupAuthor(BookData books, Commands commands) {
+        books.execute(commands.groupAuthor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public void removeAuthor(LoadedLibrary loaded, BookData books) {
+        for (String author : REMOVED_AUTHORS) {
+            Library.execute(books.interpreter, books.parse("REMOVE AUTHOR " + author), loaded.library);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int removeBulk(LoadedLibrary loaded) {
+        return Library.removeEntriesWithPages(loaded.library, BULK_REMOVAL_MODULUS);
+    }
+}